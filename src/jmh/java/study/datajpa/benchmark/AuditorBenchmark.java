@@ -0,0 +1,77 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.CachingAuditorAware;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 등록자 조회 비교 - 엔티티마다 UUID.randomUUID() vs 트랜잭션 단위 캐시(CachingAuditorAware)
+ * 한 op = 트랜잭션 하나에서 batchSize 개 엔티티 저장 (@CreatedBy + @LastModifiedBy 라서 엔티티당 2번 호출)
+ * 여러 스레드가 동시에 UUID.randomUUID()를 호출하면 SecureRandom에서 경합이 생긴다.
+ * */
+@State(Scope.Thread)
+@Threads(4)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuditorBenchmark {
+
+    @Param({"100", "1000"})
+    int batchSize;
+
+    AuditorAware<String> uuidPerCall;
+    AuditorAware<String> cached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        uuidPerCall = () -> Optional.of(UUID.randomUUID().toString()); // 기존 auditorProvider
+        cached = new CachingAuditorAware(uuidPerCall);
+    }
+
+    @Benchmark
+    public void uuidPerCall(Blackhole bh) {
+        inTransaction(uuidPerCall, bh);
+    }
+
+    @Benchmark
+    public void cachedPerTransaction(Blackhole bh) {
+        inTransaction(cached, bh);
+    }
+
+    // 트랜잭션 동기화만 흉내 낸다. (DB 없이 auditor 조회 비용만)
+    private void inTransaction(AuditorAware<String> auditorAware, Blackhole bh) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < batchSize; i++) {
+                bh.consume(auditorAware.getCurrentAuditor()); // @CreatedBy
+                bh.consume(auditorAware.getCurrentAuditor()); // @LastModifiedBy
+            }
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+}
@@ -0,0 +1,124 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.UsernameOnlyDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjection;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepository 조회 방식 비교
+ * - 연관관계: 페치 조인 vs @EntityGraph vs 지연 로딩(N + 1)
+ * - 조회 대상: DTO(new) vs Projections vs 엔티티
+ * Throughput(ops/s) + SampleTime(p50/p99 지연시간) + gc 프로파일러(할당률)
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FetchStrategyBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int memberCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkSupport.start("fetch" + memberCount);
+        JpaBenchmarkSupport.seed(context, memberCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        tx = JpaBenchmarkSupport.transactionTemplate(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 페치 조인
+    @Benchmark
+    public void fetchJoin(Blackhole bh) {
+        tx.executeWithoutResult(status -> touchTeams(memberRepository.findMemberFetchJoin(), bh));
+    }
+
+    // @EntityGraph
+    @Benchmark
+    public void entityGraph(Blackhole bh) {
+        tx.executeWithoutResult(status -> touchTeams(memberRepository.findMemberEntityGraph(), bh));
+    }
+
+    // 지연 로딩 - Team의 @BatchSize(100) 때문에 N + 1이 아니라 팀 10개를 in (...) 쿼리 한 번으로 초기화 (회원 조회 + 1)
+    @Benchmark
+    public void lazy(Blackhole bh) {
+        tx.executeWithoutResult(status -> touchTeams(memberRepository.findMemberCustom(), bh));
+    }
+
+    // DTO 직접 조회
+    @Benchmark
+    public List<MemberDto> dto() {
+        return tx.execute(status -> memberRepository.findMemberDto());
+    }
+
+    // 엔티티 조회 후 DTO 변환 (dto()와 같은 결과)
+    @Benchmark
+    public void entityToDto(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findMemberFetchJoin()) {
+                bh.consume(new MemberDto(member.getId(), member.getUsername(), member.getTeam().getName()));
+            }
+        });
+    }
+
+    // username 하나 = 전체의 1/10
+    @Benchmark
+    public void projectionClassBased(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (UsernameOnlyDto dto : memberRepository.findProjectionsByUsername("member1", UsernameOnlyDto.class)) {
+                bh.consume(dto.getUsername());
+            }
+        });
+    }
+
+    @Benchmark
+    public void projectionNested(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (NestedClosedProjection p : memberRepository.findProjectionsByUsername("member1", NestedClosedProjection.class)) {
+                bh.consume(p.getUsername());
+                bh.consume(p.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void entityByUsername(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findByUsername("member1")) {
+                bh.consume(member.getUsername());
+            }
+        });
+    }
+
+    private static void touchTeams(List<Member> members, Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(member.getTeam().getName());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크 공통 - 임베디드 H2(in-memory)로 JPA 계층만 띄운다.
+ * 웹 서버, SQL 로그, 2차 캐시 / 쿼리 캐시는 끈다. (DB 접근 비용 자체를 비교하기 위해)
+ * */
+public final class JpaBenchmarkSupport {
+
+    public static final int TEAM_COUNT = 10;
+    public static final int USERNAME_COUNT = 10; // username은 member0 ~ member9 가 반복
+
+    private JpaBenchmarkSupport() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "spring.jpa.properties.hibernate.generate_statistics=false",
+                "decorator.datasource.p6spy.enable-logging=false",
+                "datajpa.datasource.tracking.enabled=false",
+                "logging.level.org.hibernate.SQL=warn",
+                "logging.level.root=warn"));
+        properties.addAll(List.of(extraProperties));
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(new String[0]))
+                .run();
+    }
+
+    public static TransactionTemplate transactionTemplate(ConfigurableApplicationContext context) {
+        return new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    // 팀 10개에 회원을 고르게 나눠 담는다.
+    public static void seed(ConfigurableApplicationContext context, int memberCount) {
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate(context).executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                teams.add(teamRepository.save(new Team("team" + i)));
+            }
+            List<Member> members = new ArrayList<>(memberCount);
+            for (int i = 0; i < memberCount; i++) {
+                Member member = new Member("member" + (i % USERNAME_COUNT), i % 100);
+                member.setTeam(teams.get(i % TEAM_COUNT));
+                members.add(member);
+            }
+            memberRepository.saveAll(members);
+        });
+    }
+}
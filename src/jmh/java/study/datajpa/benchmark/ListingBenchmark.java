@@ -0,0 +1,85 @@
+package study.datajpa.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.CountMode;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberListingService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 목록 응답 한 번 만들기 - /members (Page<Member> -> Page<MemberDto> -> ObjectMapper) vs /members/compact
+ * 요청당 할당량은 gc 프로파일러의 gc.alloc.rate.norm (B/op)
+ * 응답은 버리는 OutputStream에 쓴다. (네트워크 제외)
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ListingBenchmark {
+
+    @Param({"20", "200", "2000"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberListingService memberListingService;
+    ObjectMapper objectMapper;
+    TransactionTemplate tx;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkSupport.start("listing" + pageSize);
+        JpaBenchmarkSupport.seed(context, 10_000);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberListingService = context.getBean(MemberListingService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        tx = JpaBenchmarkSupport.transactionTemplate(context);
+        pageRequest = PageRequest.of(1, pageSize, Sort.by("username"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 기존 /members (OSIV 대신 트랜잭션 안에서 직렬화, count 전략은 설정 기본값)
+    @Benchmark
+    public void pageOfDto() {
+        tx.executeWithoutResult(status -> {
+            Slice<Member> page = memberRepository.findAll(pageRequest, (CountMode) null);
+            Slice<MemberDto> dto = page.map(MemberDto::new);
+            try {
+                objectMapper.writeValue(OutputStream.nullOutputStream(), dto);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // /members/compact
+    @Benchmark
+    public void compactStreaming() throws IOException {
+        memberListingService.writePage(OutputStream.nullOutputStream(), pageRequest);
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.EntityUpdateService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 인기 회원 몇 명을 여러 스레드가 동시에 수정할 때 비관적 락 vs 낙관적 락 + 재시도
+ * 스레드 수별 하위 클래스(Threads1/4/16), SampleTime으로 p99 등 꼬리 지연시간 확인
+ * ./gradlew jmh -PjmhInclude=LockContentionBenchmark
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public abstract class LockContentionBenchmark {
+
+    @Param({"1", "8"})
+    int hotMembers; // 경합 대상 row 수 (적을수록 충돌이 잦다)
+
+    ConfigurableApplicationContext context;
+    EntityUpdateService entityUpdateService;
+    List<Long> hotIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkSupport.start(getClass().getSimpleName() + hotMembers,
+                "datajpa.optimistic.max-attempts=100");
+        JpaBenchmarkSupport.seed(context, 100);
+        entityUpdateService = context.getBean(EntityUpdateService.class);
+        hotIds = context.getBean(MemberRepository.class).findAll().stream()
+                .limit(hotMembers)
+                .map(Member::getId)
+                .collect(Collectors.toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Member pessimistic() {
+        return entityUpdateService.updatePessimistic(Member.class, hotId(), m -> m.setAge(m.getAge() + 1));
+    }
+
+    @Benchmark
+    public Member optimistic() {
+        return entityUpdateService.updateOptimistic(Member.class, hotId(), m -> m.setAge(m.getAge() + 1));
+    }
+
+    private Long hotId() {
+        return hotIds.get(ThreadLocalRandom.current().nextInt(hotIds.size()));
+    }
+
+    @Threads(1)
+    public static class Threads1 extends LockContentionBenchmark {
+    }
+
+    @Threads(4)
+    public static class Threads4 extends LockContentionBenchmark {
+    }
+
+    @Threads(16)
+    public static class Threads16 extends LockContentionBenchmark {
+    }
+}
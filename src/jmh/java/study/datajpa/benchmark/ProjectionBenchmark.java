@@ -0,0 +1,104 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.UsernameOnlyDto;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjection;
+import study.datajpa.repository.UsernameOnly;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프로젝션 비교 - 스프링 데이터 프록시/SpEL vs 생성자 DTO 매퍼(findDtoByUsername)
+ * 할당량은 gc 프로파일러의 gc.alloc.rate.norm (B/op)
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"1000", "10000"})
+    int memberCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkSupport.start("projection" + memberCount);
+        JpaBenchmarkSupport.seed(context, memberCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        tx = JpaBenchmarkSupport.transactionTemplate(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 오픈 프로젝션 - 엔티티 전체 + 팀 조회 후 SpEL
+    @Benchmark
+    public void proxyOpen(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (UsernameOnly p : memberRepository.findProjectionsByUsername("member1", UsernameOnly.class)) {
+                bh.consume(p.getUsername());
+            }
+        });
+    }
+
+    // 중첩 클로즈드 프로젝션 - 프록시
+    @Benchmark
+    public void proxyNested(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (NestedClosedProjection p : memberRepository.findProjectionsByUsername("member1", NestedClosedProjection.class)) {
+                bh.consume(p.getUsername());
+                bh.consume(p.getTeam().getName());
+            }
+        });
+    }
+
+    // 클래스 기반 프로젝션 - 스프링 데이터
+    @Benchmark
+    public void springDataDto(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (UsernameOnlyDto dto : memberRepository.findProjectionsByUsername("member1", UsernameOnlyDto.class)) {
+                bh.consume(dto.getUsername());
+            }
+        });
+    }
+
+    // 생성자 매퍼 - username 한 컬럼
+    @Benchmark
+    public void mapperUsernameOnly(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (UsernameOnlyDto dto : memberRepository.findDtoByUsername("member1", UsernameOnlyDto.class)) {
+                bh.consume(dto.getUsername());
+            }
+        });
+    }
+
+    // 생성자 매퍼 - id, username, team.name (proxyNested와 같은 정보)
+    @Benchmark
+    public void mapperWithTeam(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (MemberDto dto : memberRepository.findDtoByUsername("member1", MemberDto.class)) {
+                bh.consume(dto.getUsername());
+                bh.consume(dto.getTeamName());
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJPARepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대량 insert 비교 - 트랜잭션 하나에 rows 건
+ * - persist          : MemberJPARepository.saveAll (커밋할 때까지 전부 영속성 컨텍스트에 남는다)
+ * - persistFlushClear: persist + 1000건마다 flush / clear (MemberImportService 방식)
+ * - stateless        : MemberJPARepository.insertStateless
+ * op 하나가 길어서 SingleShotTime, 할당량은 gc.alloc.rate.norm (B/op)
+ * 1M 건 persist는 힙이 부족하면 -Xmx를 늘려서 돌린다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StatelessWriteBenchmark {
+
+    static final int FLUSH_INTERVAL = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    MemberJPARepository memberJPARepository;
+    EntityManager em;
+    TransactionTemplate tx;
+    List<Member> members;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkSupport.start("stateless" + rows, "datajpa.username-index.enabled=false");
+        memberJPARepository = context.getBean(MemberJPARepository.class);
+        em = context.getBean(EntityManager.class); // 트랜잭션에 묶이는 공유 프록시
+        tx = JpaBenchmarkSupport.transactionTemplate(context);
+    }
+
+    // 매번 빈 테이블, 새 엔티티로 시작한다. (엔티티 생성 비용은 측정에서 뺀다)
+    @Setup(Level.Iteration)
+    public void prepare() {
+        tx.executeWithoutResult(status -> em.createNativeQuery("truncate table member").executeUpdate());
+        members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void persist() {
+        tx.executeWithoutResult(status -> memberJPARepository.saveAll(members));
+    }
+
+    @Benchmark
+    public void persistFlushClear() {
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < members.size(); i++) {
+                memberJPARepository.save(members.get(i));
+                if ((i + 1) % FLUSH_INTERVAL == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public void stateless() {
+        tx.executeWithoutResult(status -> memberJPARepository.insertStateless(members));
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.config.CachingAuditorAware;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -19,7 +20,8 @@ public class DataJpaApplication {
 
 	@Bean
 	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString()); 
 		// 실무에서는 세션 정보나 스프링 시큐리티 로그인 정보에서 ID를 받음 
+		// 엔티티마다 조회하지 않도록 요청 / 트랜잭션 단위로 캐시
+		return new CachingAuditorAware(() -> Optional.of(UUID.randomUUID().toString()));
 	}
 }
@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import org.springframework.data.spel.spi.EvaluationContextExtension;
+import org.springframework.stereotype.Component;
+
+/**
+ * @Query 안에서 :#{modifiedBy}, :#{modifiedDate} 를 쓸 수 있게 한다.
+ * 쿼리를 실행할 때마다 root object를 새로 만든다.
+ * */
+@Component
+public class AuditEvaluationContextExtension implements EvaluationContextExtension {
+
+    private final AuditStampProvider auditStampProvider;
+
+    public AuditEvaluationContextExtension(AuditStampProvider auditStampProvider) {
+        this.auditStampProvider = auditStampProvider;
+    }
+
+    @Override
+    public String getExtensionId() {
+        return "audit";
+    }
+
+    @Override
+    public AuditStamp getRootObject() {
+        return auditStampProvider.current();
+    }
+}
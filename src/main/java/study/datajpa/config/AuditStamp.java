@@ -0,0 +1,40 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+
+import javax.persistence.Parameter;
+import javax.persistence.Query;
+import java.time.LocalDateTime;
+
+/**
+ * 벌크 JPQL update에 넣을 수정자 / 수정 시각
+ * JPQL 벌크 연산은 엔티티 리스너(@LastModifiedBy, @LastModifiedDate)를 거치지 않으므로 직접 set 한다.
+ * - JPQL      : m.lastModifiedDate = :modifiedDate, m.lastModifiedBy = :modifiedBy
+ * - @Query    : m.lastModifiedDate = :#{modifiedDate}, m.lastModifiedBy = :#{modifiedBy} (AuditEvaluationContextExtension)
+ * */
+@Getter
+public class AuditStamp {
+
+    public static final String MODIFIED_BY = "modifiedBy";
+    public static final String MODIFIED_DATE = "modifiedDate";
+
+    private final String modifiedBy;
+    private final LocalDateTime modifiedDate;
+
+    public AuditStamp(String modifiedBy, LocalDateTime modifiedDate) {
+        this.modifiedBy = modifiedBy;
+        this.modifiedDate = modifiedDate;
+    }
+
+    // 쿼리에 :modifiedBy, :modifiedDate 파라미터가 있으면 채운다.
+    public <Q extends Query> Q bindTo(Q query) {
+        for (Parameter<?> parameter : query.getParameters()) {
+            if (MODIFIED_BY.equals(parameter.getName())) {
+                query.setParameter(MODIFIED_BY, modifiedBy);
+            } else if (MODIFIED_DATE.equals(parameter.getName())) {
+                query.setParameter(MODIFIED_DATE, modifiedDate);
+            }
+        }
+        return query;
+    }
+}
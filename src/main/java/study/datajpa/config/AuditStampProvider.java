@@ -0,0 +1,21 @@
+package study.datajpa.config;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+public class AuditStampProvider {
+
+    private final AuditorAware<String> auditorAware;
+
+    public AuditStampProvider(AuditorAware<String> auditorAware) {
+        this.auditorAware = auditorAware;
+    }
+
+    // 엔티티 auditing과 같은 AuditorAware, 같은 시계(LocalDateTime.now())
+    public AuditStamp current() {
+        return new AuditStamp(auditorAware.getCurrentAuditor().orElse(null), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,57 @@
+package study.datajpa.config;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * 등록자 / 수정자 조회 캐시
+ * @CreatedBy, @LastModifiedBy는 엔티티를 저장할 때마다 AuditorAware를 호출한다. (배치 insert면 row 수만큼)
+ * 실제 조회(delegate)는 HTTP 요청 하나, 요청이 없으면 트랜잭션 하나에 한 번만 하고 결과를 재사용한다.
+ * 둘 다 없으면 매번 delegate를 호출한다.
+ * */
+public class CachingAuditorAware implements AuditorAware<String> {
+
+    private static final String REQUEST_ATTRIBUTE = CachingAuditorAware.class.getName() + ".AUDITOR";
+
+    private final AuditorAware<String> delegate;
+
+    public CachingAuditorAware(AuditorAware<String> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<String> getCurrentAuditor() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Optional<String> auditor = (Optional<String>) request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (auditor == null) {
+                auditor = delegate.getCurrentAuditor();
+                request.setAttribute(REQUEST_ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+            }
+            return auditor;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Optional<String> auditor = (Optional<String>) TransactionSynchronizationManager.getResource(this);
+            if (auditor == null) {
+                auditor = delegate.getCurrentAuditor();
+                TransactionSynchronizationManager.bindResource(this, auditor);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(CachingAuditorAware.this);
+                    }
+                });
+            }
+            return auditor;
+        }
+
+        return delegate.getCurrentAuditor();
+    }
+}
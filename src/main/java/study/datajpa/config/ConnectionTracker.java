@@ -0,0 +1,248 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 커넥션 풀 상태 + 커넥션을 오래 잡고 있는 코드 찾기
+ *
+ * datajpa.datasource.tracking.enabled=true 일 때만 HikariDataSource 빈을 CGLIB 프록시로 감싼다. (ConnectionTrackingConfig)
+ * 빈 타입은 HikariDataSource 그대로라서 HikariDataSource로 주입받는 코드도 그대로 동작한다.
+ * 커넥션을 빌려갈 때는 스레드와 시각만 기록하고, 호출 스택은 leak-threshold를 넘긴 커넥션에서만 본다. (Hikari leakDetectionThreshold와 같은 방식)
+ * - 반납할 때 threshold를 넘겼으면 반납하는 스레드의 스택에서 애플리케이션 메소드(컨트롤러 ~ 리파지터리)를 찾아
+ *   datajpa.datasource.connection.long_held{pool, owner}로 센다.
+ * - 아직 잡고 있는 커넥션은 /actuator/connectionpool을 볼 때 잡고 있는 스레드의 스택으로 owner를 찾는다.
+ *
+ * 풀 수치(active, idle, pending)와 acquire / usage 시간 분포는 Hikari 메트릭(hikaricp.connections.*)을 그대로 쓴다.
+ * 결과는 /actuator/connectionpool
+ * */
+@Slf4j
+@Component
+@Endpoint(id = "connectionpool")
+public class ConnectionTracker {
+
+    private static final String APP_PACKAGE = "study.datajpa.";
+    private static final String CONFIG_PACKAGE = "study.datajpa.config.";
+    private static final int MAX_HELD_IN_REPORT = 20;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final long leakThresholdNanos;
+
+    private final Map<String, HikariDataSource> pools = new ConcurrentHashMap<>();
+    private final Map<Long, Checkout> held = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> longHeld = new ConcurrentHashMap<>();
+    private final AtomicLong checkoutIds = new AtomicLong();
+
+    public ConnectionTracker(ObjectProvider<MeterRegistry> meterRegistry,
+                             @Value("${datajpa.datasource.tracking.enabled:false}") boolean enabled,
+                             @Value("${datajpa.datasource.tracking.leak-threshold:2s}") Duration leakThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.leakThresholdNanos = leakThreshold.toNanos();
+    }
+
+    HikariDataSource wrap(String beanName, HikariDataSource dataSource) {
+        pools.put(beanName, dataSource);
+        if (!enabled) {
+            return dataSource;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(dataSource);
+        proxyFactory.setProxyTargetClass(true); // 인터페이스(DataSource)가 아니라 HikariDataSource 하위 클래스로
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            Object result = invocation.proceed();
+            return "getConnection".equals(invocation.getMethod().getName())
+                    ? checkout(beanName, (Connection) result)
+                    : result;
+        });
+        return (HikariDataSource) proxyFactory.getProxy(ConnectionTracker.class.getClassLoader());
+    }
+
+    Connection checkout(String pool, Connection target) {
+        long id = checkoutIds.incrementAndGet();
+        held.put(id, new Checkout(pool, Thread.currentThread(), System.nanoTime()));
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionTracker.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            if (closed.compareAndSet(false, true)) {
+                                release(id);
+                            }
+                            break;
+                        default:
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private void release(long id) {
+        Checkout checkout = held.remove(id);
+        if (checkout == null) {
+            return;
+        }
+        long heldNanos = System.nanoTime() - checkout.since;
+        if (heldNanos < leakThresholdNanos) {
+            return;
+        }
+        String owner = owner(Thread.currentThread().getStackTrace()); // 반납은 빌려간 스레드에서 (트랜잭션 종료)
+        longHeld.computeIfAbsent(checkout.pool + " " + owner, k -> new LongAdder()).increment();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            registry.counter("datajpa.datasource.connection.long_held",
+                    "pool", checkout.pool, "owner", owner).increment();
+        }
+        log.warn("커넥션을 {}ms 동안 잡고 있었습니다. pool={}, owner={}, thread={}",
+                TimeUnit.NANOSECONDS.toMillis(heldNanos), checkout.pool, owner, checkout.thread.getName());
+    }
+
+    // 호출 스택에서 가장 바깥(보통 컨트롤러)과 가장 안쪽(보통 리파지터리) 애플리케이션 메소드
+    private static String owner(StackTraceElement[] stack) {
+        String inner = null;
+        String outer = null;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith(APP_PACKAGE)
+                    || className.startsWith(CONFIG_PACKAGE)
+                    || className.contains("$$")
+                    || frame.getMethodName().startsWith("lambda$")) {
+                continue;
+            }
+            outer = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            if (inner == null) {
+                inner = outer;
+            }
+        }
+        if (inner == null) {
+            return "unknown";
+        }
+        return inner.equals(outer) ? inner : outer + " > " + inner;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Object> poolReports = new LinkedHashMap<>();
+        pools.forEach((beanName, dataSource) -> poolReports.put(beanName, poolReport(dataSource)));
+        report.put("pools", poolReports);
+        report.put("leakThresholdMillis", TimeUnit.NANOSECONDS.toMillis(leakThresholdNanos));
+
+        long now = System.nanoTime();
+        List<Map<String, Object>> current = held.values().stream()
+                .sorted(Comparator.comparingLong(c -> c.since))
+                .limit(MAX_HELD_IN_REPORT)
+                .map(c -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    long heldNanos = now - c.since;
+                    boolean leakSuspect = heldNanos >= leakThresholdNanos;
+                    row.put("pool", c.pool);
+                    // 잡고 있는 스레드의 지금 스택 - threshold를 넘긴 커넥션만
+                    row.put("owner", leakSuspect ? owner(c.thread.getStackTrace()) : null);
+                    row.put("thread", c.thread.getName());
+                    row.put("heldMillis", TimeUnit.NANOSECONDS.toMillis(heldNanos));
+                    row.put("leakSuspect", leakSuspect);
+                    return row;
+                })
+                .collect(Collectors.toList());
+        report.put("heldConnections", held.size());
+        report.put("longestHeld", current);
+
+        Map<String, Long> longHeldByOwner = new LinkedHashMap<>();
+        longHeld.entrySet().stream()
+                .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                .forEach(e -> longHeldByOwner.put(e.getKey(), e.getValue().sum()));
+        report.put("longHeldByOwner", longHeldByOwner);
+        return report;
+    }
+
+    private Map<String, Object> poolReport(HikariDataSource dataSource) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("poolName", dataSource.getPoolName());
+        report.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            report.put("started", false); // 첫 커넥션 요청 전
+            return report;
+        }
+        report.put("active", pool.getActiveConnections());
+        report.put("idle", pool.getIdleConnections());
+        report.put("total", pool.getTotalConnections());
+        report.put("pending", pool.getThreadsAwaitingConnection());
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            report.put("acquire", timerReport(registry, "hikaricp.connections.acquire", dataSource.getPoolName()));
+            report.put("usage", timerReport(registry, "hikaricp.connections.usage", dataSource.getPoolName()));
+        }
+        return report;
+    }
+
+    // 버킷은 management.metrics.distribution.slo 설정을 따른다.
+    private static Map<String, Object> timerReport(MeterRegistry registry, String name, String poolName) {
+        Timer timer = registry.find(name).tag("pool", poolName).timer();
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (timer == null) {
+            return report;
+        }
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        report.put("count", snapshot.count());
+        report.put("meanMillis", snapshot.mean(TimeUnit.MILLISECONDS));
+        report.put("maxMillis", snapshot.max(TimeUnit.MILLISECONDS));
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("leMillis", bucket.bucket(TimeUnit.MILLISECONDS));
+            row.put("count", (long) bucket.count());
+            buckets.add(row);
+        }
+        report.put("histogram", buckets); // 누적 카운트
+        return report;
+    }
+
+    private static class Checkout {
+        final String pool;
+        final Thread thread;
+        final long since;
+
+        Checkout(String pool, Thread thread, long since) {
+            this.pool = pool;
+            this.thread = thread;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ConnectionTrackingConfig {
+
+    // 기본 DataSource든 primary / replica든 HikariDataSource 빈은 전부 등록한다. (추적이 켜져 있으면 HikariDataSource 프록시로 교체)
+    // BeanPostProcessor는 다른 빈보다 먼저 만들어지므로 static + ObjectProvider
+    @Bean
+    public static BeanPostProcessor connectionTrackingPostProcessor(ObjectProvider<ConnectionTracker> tracker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    return tracker.getObject().wrap(beanName, (HikariDataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 읽기 전용 replica 라우팅
+ * datajpa.datasource.replica.jdbc-url 이 있을 때만 켜진다. (없으면 스프링 부트 기본 DataSource 하나)
+ * 커넥션 풀 메트릭은 풀 이름별로 hikaricp.connections.* {pool=primary|replica}
+ * */
+@Configuration
+@ConditionalOnProperty("datajpa.datasource.replica.jdbc-url")
+public class DataSourceConfig {
+
+    // spring.datasource.* 설정 그대로
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(ReplicationRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    // datajpa.datasource.replica.jdbc-url, username, password, maximum-pool-size ...
+    @Bean
+    @ConfigurationProperties("datajpa.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(ReplicationRoutingDataSource.REPLICA);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReplicationRoutingDataSource(primary, replica));
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfig {
+
+    // 클래스 이름이 아니라 스프링 빈 인스턴스를 넘겨야 의존관계 주입이 된다.
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementInspector sqlStatementInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementInspector);
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 쿼리 결과 캐시 현황 - /actuator/querycache
+ * 쿼리별 hit / miss / put, hit ratio와 쿼리 캐시 리전별 크기
+ * IN 리스트 파라미터가 있는 쿼리는 hibernate가 펼친 쿼리(:names_0, :names_1 ...) 기준이라 리스트 크기별로 따로 나온다.
+ * hibernate.generate_statistics가 꺼져 있으면 전부 0
+ * */
+@Component
+@Endpoint(id = "querycache")
+public class QueryCacheEndpoint {
+
+    private final EntityManagerFactory emf;
+
+    public QueryCacheEndpoint(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        SessionFactoryImplementor factory = emf.unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = factory.getStatistics();
+
+        Map<String, Object> queries = new LinkedHashMap<>();
+        for (String query : new TreeSet<>(Arrays.asList(statistics.getQueries()))) {
+            QueryStatistics stats = statistics.getQueryStatistics(query);
+            long hits = stats.getCacheHitCount();
+            long misses = stats.getCacheMissCount();
+            if (hits + misses + stats.getCachePutCount() == 0) {
+                continue; // cacheable이 아닌 쿼리
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hitCount", hits);
+            entry.put("missCount", misses);
+            entry.put("putCount", stats.getCachePutCount());
+            entry.put("hitRatio", ratio(hits, misses));
+            entry.put("executionCount", stats.getExecutionCount()); // DB까지 간 횟수
+            queries.put(query, entry);
+        }
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : new TreeSet<>(factory.getCache().getCacheRegionNames())) {
+            if (factory.getCache().getQueryResultsCacheStrictly(region) == null) {
+                continue; // 엔티티 / 컬렉션 / timestamps 리전
+            }
+            CacheRegionStatistics stats = statistics.getQueryRegionStatistics(region);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hitCount", stats.getHitCount());
+            entry.put("missCount", stats.getMissCount());
+            entry.put("putCount", stats.getPutCount());
+            entry.put("hitRatio", ratio(stats.getHitCount(), stats.getMissCount()));
+            entry.put("elementCountInMemory", stats.getElementCountInMemory()); // 지원하지 않으면 -1
+            regions.put(region, entry);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("hitCount", statistics.getQueryCacheHitCount());
+        report.put("missCount", statistics.getQueryCacheMissCount());
+        report.put("putCount", statistics.getQueryCachePutCount());
+        report.put("hitRatio", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        report.put("queries", queries);
+        report.put("regions", regions);
+        return report;
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+}
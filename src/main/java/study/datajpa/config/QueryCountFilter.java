@@ -0,0 +1,99 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * HTTP 요청 하나에서 실행된 SQL 개수를 응답 헤더(X-Query-Count)와 메트릭으로 남긴다.
+ * 헤더는 응답 바디를 쓰기 직전에 붙이기 때문에, 그 이후(JSON 직렬화 중 지연 로딩 등) SQL은 메트릭에만 잡힌다.
+ * */
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String N_PLUS_ONE_HEADER = "X-N-Plus-One";
+
+    private final QueryCounter queryCounter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (QueryCounter.Scope scope = queryCounter.open("request")) {
+            QueryCountResponse wrapped = new QueryCountResponse(response, scope);
+            try {
+                chain.doFilter(request, wrapped);
+            } finally {
+                wrapped.writeHeaders();
+                queryCounter.report(scope, request.getMethod() + " " + request.getRequestURI());
+            }
+        }
+    }
+
+    private static class QueryCountResponse extends HttpServletResponseWrapper {
+        private final QueryCounter.Scope scope;
+        private boolean headersWritten;
+
+        QueryCountResponse(HttpServletResponse response, QueryCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void writeHeaders() {
+            if (headersWritten || isCommitted()) {
+                return;
+            }
+            headersWritten = true;
+            setIntHeader(QUERY_COUNT_HEADER, scope.getCount());
+            if (!scope.getSuspectedNPlusOne().isEmpty()) {
+                setHeader(N_PLUS_ONE_HEADER, "true");
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
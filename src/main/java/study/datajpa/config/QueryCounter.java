@@ -0,0 +1,156 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * SQL 실행 횟수 카운터 + N + 1 감지
+ * 같은 스레드에서 열려 있는 모든 Scope(HTTP 요청, 테스트 등)에 SQL 실행이 기록된다.
+ * 트랜잭션 단위는 트랜잭션 동기화에 묶어서 따로 센다.
+ *
+ * N + 1 판단 기준: 파라미터만 다른 같은 select SQL이 threshold 번 이상 반복
+ * */
+@Slf4j
+@Component
+public class QueryCounter {
+
+    private static final Object TRANSACTION_SCOPE_KEY = new Object();
+
+    private final ThreadLocal<List<Scope>> scopes = ThreadLocal.withInitial(ArrayList::new);
+    private final ObjectProvider<MeterRegistry> meterRegistry; // hibernate 설정 시점에 registry를 만들지 않도록 지연 조회
+    private final int nPlusOneThreshold;
+
+    public QueryCounter(ObjectProvider<MeterRegistry> meterRegistry,
+                        @Value("${datajpa.sql.n-plus-one-threshold:3}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    /**
+     * 현재 스레드에서 카운트 시작. try-with-resources로 닫는다.
+     * */
+    public Scope open(String name) {
+        Scope scope = new Scope(name, nPlusOneThreshold);
+        scopes.get().add(scope);
+        return scope;
+    }
+
+    void onStatement(String sql) {
+        List<Scope> active = scopes.get();
+        for (Scope scope : active) {
+            scope.record(sql);
+        }
+        if (active.isEmpty()) {
+            scopes.remove();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionScope().record(sql);
+        }
+    }
+
+    /**
+     * 메트릭 기록 + N + 1 의심 SQL 경고 로그
+     * */
+    public void report(Scope scope, String source) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            record(registry, scope);
+        }
+        List<String> suspects = scope.getSuspectedNPlusOne();
+        if (!suspects.isEmpty()) {
+            log.warn("N + 1 의심 [{} {}] 총 {}개 SQL, 반복된 SQL: {}", scope.name, source, scope.getCount(), suspects);
+        }
+    }
+
+    private void record(MeterRegistry registry, Scope scope) {
+        DistributionSummary.builder("datajpa.sql.statements")
+                .description("SQL statements per " + scope.name)
+                .tag("scope", scope.name)
+                .register(registry)
+                .record(scope.getCount());
+        if (!scope.getSuspectedNPlusOne().isEmpty()) {
+            Counter.builder("datajpa.sql.n_plus_one")
+                    .tag("scope", scope.name)
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    private Scope transactionScope() {
+        Scope scope = (Scope) TransactionSynchronizationManager.getResource(TRANSACTION_SCOPE_KEY);
+        if (scope == null) {
+            Scope newScope = new Scope("transaction", nPlusOneThreshold);
+            String txName = TransactionSynchronizationManager.getCurrentTransactionName();
+            TransactionSynchronizationManager.bindResource(TRANSACTION_SCOPE_KEY, newScope);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SCOPE_KEY);
+                    report(newScope, String.valueOf(txName));
+                }
+            });
+            scope = newScope;
+        }
+        return scope;
+    }
+
+    public class Scope implements AutoCloseable {
+        private final String name;
+        private final int threshold;
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        private int count;
+
+        private Scope(String name, int threshold) {
+            this.name = name;
+            this.threshold = threshold;
+        }
+
+        private void record(String sql) {
+            count++;
+            statements.merge(sql, 1, Integer::sum);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        // 실행된 SQL (중복 제거, 처음 실행된 순서)
+        public List<String> getStatements() {
+            return new ArrayList<>(statements.keySet());
+        }
+
+        // threshold 번 이상 반복된 select SQL
+        public List<String> getSuspectedNPlusOne() {
+            List<String> suspects = Collections.emptyList();
+            for (Map.Entry<String, Integer> entry : statements.entrySet()) {
+                if (entry.getValue() >= threshold
+                        && entry.getKey().stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+                    if (suspects.isEmpty()) {
+                        suspects = new ArrayList<>();
+                    }
+                    suspects.add(entry.getValue() + "x " + entry.getKey());
+                }
+            }
+            return suspects;
+        }
+
+        @Override
+        public void close() {
+            scopes.get().remove(this);
+        }
+    }
+}
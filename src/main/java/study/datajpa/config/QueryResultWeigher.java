@@ -0,0 +1,60 @@
+package study.datajpa.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+
+/**
+ * 쿼리 결과 캐시 리전의 엔트리 무게 = 결과 row 수 + 1 (application.conf의 policy.maximum.weigher)
+ *
+ * maximum.size는 엔트리 개수만 제한해서, 전체 조인 결과(findMemberDto) 하나와 id 몇 개짜리 결과(findByNames)가 같은 1로 센다.
+ * row 수로 세면 리전 전체가 maximum.weight 개의 row(엔티티 id 또는 DTO 컬럼 값)로 제한되고,
+ * 혼자서 maximum.weight를 넘는 결과는 캐시에 넣자마자 제거된다. (그만큼 큰 결과는 캐시하지 않는 것과 같다)
+ *
+ * hibernate가 넣는 값(QueryResultsCacheImpl.CacheItem)은 timestamp + 결과 List 라서 Collection 필드를 찾아 크기를 본다.
+ * 구조를 모르는 값은 1 (maximum.size와 같다)
+ * */
+public class QueryResultWeigher implements Weigher<Object, Object> {
+
+    private static final ClassValue<Field> ROWS = new ClassValue<>() {
+        @Override
+        protected Field computeValue(Class<?> type) {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && Collection.class.isAssignableFrom(field.getType())) {
+                        try {
+                            field.setAccessible(true);
+                            return field;
+                        } catch (RuntimeException e) {
+                            return null;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+    };
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return 1 + rows(value);
+    }
+
+    private static int rows(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        Field field = value == null ? null : ROWS.get(value.getClass());
+        if (field == null) {
+            return 0;
+        }
+        try {
+            Collection<?> rows = (Collection<?>) field.get(value);
+            return rows == null ? 0 : rows.size();
+        } catch (IllegalAccessException e) {
+            return 0;
+        }
+    }
+}
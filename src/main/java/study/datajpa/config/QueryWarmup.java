@@ -0,0 +1,212 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.EntityType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 기동 시 JPQL 미리 컴파일
+ * - 스프링 데이터 리파지토리의 @Query (nativeQuery 제외)
+ * - 엔티티의 @NamedQuery
+ * - study.datajpa 빈 클래스(리파지터리, 커스텀 구현, 서비스 등)의 static final String JPQL 상수
+ *   (MemberJPARepository, MemberRepositoryCustomImpl, MemberListingService, ChunkedBulkUpdater ...)
+ * em.createQuery()로 파싱만 하면 hibernate 쿼리 플랜 캐시에 올라가서 첫 요청이 SQL 변환 비용을 내지 않는다.
+ * 잘못된 JPQL이 있으면 기동을 실패시킨다. 결과는 /actuator/querywarmup
+ *
+ * 실행 시점에 만들어지는 JPQL은 미리 파싱할 수 없다. (처음 실행할 때 한 번 파싱해서 플랜 캐시에 올라간다)
+ * - 상수에 정렬을 붙인 쿼리 (applySorting - MemberRepositoryCustomImpl.findAll / findByAge, MemberListingService)
+ * - DtoProjection이 DTO 타입별로 만드는 select 절, ChunkedJobRunner가 엔티티 / 조건별로 만드는 범위 / 청크 쿼리
+ * - RangeUpdate처럼 인자로 받는 쿼리는 넘겨주는 쪽 상수로 잡힌다. (MemberBulkUpdateService.AGE_PLUS)
+ * native SQL 상수는 select / update / delete로 시작하면 JPQL로 파싱되므로 상수로 두지 않는다. (insert는 대상 아님)
+ * */
+@Slf4j
+@Component
+@Endpoint(id = "querywarmup")
+public class QueryWarmup implements ApplicationRunner {
+
+    // @Query의 SpEL 파라미터 :#{...} / ?#{...} - 파싱할 때는 일반 파라미터로 바꾼다.
+    private static final Pattern SPEL_PARAMETER = Pattern.compile("[:?]#\\{[^}]*}");
+    private static final String APP_PACKAGE = "study.datajpa.";
+
+    private final ApplicationContext applicationContext;
+    private final EntityManagerFactory emf;
+    private final boolean enabled;
+    private final boolean failFast;
+
+    private final Map<String, QueryResult> results = new LinkedHashMap<>();
+
+    public QueryWarmup(ApplicationContext applicationContext,
+                       EntityManagerFactory emf,
+                       @Value("${datajpa.query-warmup.enabled:true}") boolean enabled,
+                       @Value("${datajpa.query-warmup.fail-fast:true}") boolean failFast) {
+        this.applicationContext = applicationContext;
+        this.emf = emf;
+        this.enabled = enabled;
+        this.failFast = failFast;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, String> queries = collectQueries();
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long hitsBefore = statistics.getQueryPlanCacheHitCount();
+        long missesBefore = statistics.getQueryPlanCacheMissCount();
+
+        List<String> failures = new ArrayList<>();
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (Map.Entry<String, String> query : queries.entrySet()) {
+                long start = System.nanoTime();
+                try {
+                    em.createQuery(replaceSpelParameters(query.getValue()));
+                    results.put(query.getKey(), new QueryResult(query.getValue(), (System.nanoTime() - start) / 1_000, null));
+                } catch (RuntimeException e) {
+                    results.put(query.getKey(), new QueryResult(query.getValue(), (System.nanoTime() - start) / 1_000, e.getMessage()));
+                    failures.add(query.getKey() + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            em.close();
+        }
+
+        long hits = statistics.getQueryPlanCacheHitCount() - hitsBefore;
+        long misses = statistics.getQueryPlanCacheMissCount() - missesBefore;
+        log.info("query warm-up: {}개 JPQL, 실패 {}개, 플랜 캐시 hit {} / miss {} (통계가 꺼져 있으면 0)",
+                results.size(), failures.size(), hits, misses);
+        results.forEach((name, result) -> log.debug("  {} {}us {}", name, result.getCompileMicros(),
+                result.getError() == null ? "" : result.getError()));
+
+        if (!failures.isEmpty() && failFast) {
+            throw new IllegalStateException("잘못된 JPQL이 있습니다.\n" + String.join("\n", failures));
+        }
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("planCacheHitCount", hits);
+        report.put("planCacheMissCount", misses);
+        report.put("planCacheHitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        report.put("queries", results);
+        return report;
+    }
+
+    private static String replaceSpelParameters(String query) {
+        Matcher matcher = SPEL_PARAMETER.matcher(query);
+        StringBuilder replaced = new StringBuilder();
+        int index = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(replaced, ":spel" + index++);
+        }
+        matcher.appendTail(replaced);
+        return replaced.toString();
+    }
+
+    private Map<String, String> collectQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+
+        // @NamedQuery
+        for (EntityType<?> entity : emf.getMetamodel().getEntities()) {
+            for (NamedQuery namedQuery : AnnotatedElementUtils.findMergedRepeatableAnnotations(
+                    entity.getJavaType(), NamedQuery.class, NamedQueries.class)) {
+                queries.put("@NamedQuery " + namedQuery.name(), namedQuery.query());
+            }
+        }
+
+        // 스프링 데이터 @Query
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+                if (query != null && !query.nativeQuery() && !query.value().isEmpty()) {
+                    queries.put(information.getRepositoryInterface().getSimpleName() + "." + method.getName(), query.value());
+                }
+            }
+        }
+
+        // 애플리케이션 빈 클래스의 JPQL 상수 (static 필드라 빈을 만들지 않고 타입만 본다)
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (String beanName : BeanFactoryUtils.beanNamesIncludingAncestors(applicationContext)) {
+            Class<?> type = applicationContext.getType(beanName, false);
+            if (type != null && !type.isInterface() && type.getName().startsWith(APP_PACKAGE)) {
+                types.add(ClassUtils.getUserClass(type));
+            }
+        }
+        for (Class<?> type : types) {
+            for (Field field : type.getDeclaredFields()) {
+                String jpql = jpqlConstant(field);
+                if (jpql != null) {
+                    queries.put(type.getSimpleName() + "." + field.getName(), jpql);
+                }
+            }
+        }
+        return queries;
+    }
+
+    private static String jpqlConstant(Field field) {
+        int modifiers = field.getModifiers();
+        if (field.getType() != String.class || !Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) {
+            return null;
+        }
+        try {
+            field.setAccessible(true);
+            String value = (String) field.get(null);
+            String head = value == null ? "" : value.stripLeading().toLowerCase(Locale.ROOT);
+            return head.startsWith("select ") || head.startsWith("update ") || head.startsWith("delete ") ? value : null;
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Getter
+    public static class QueryResult {
+        private final String jpql;
+        private final long compileMicros;
+        private final String error;
+
+        QueryResult(String jpql, long compileMicros, String error) {
+            this.jpql = jpql;
+            this.compileMicros = compileMicros;
+            this.error = error;
+        }
+    }
+}
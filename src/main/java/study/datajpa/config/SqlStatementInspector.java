@@ -0,0 +1,24 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * hibernate가 실행하는 모든 SQL이 거쳐가는 지점
+ * SQL은 바꾸지 않고 관찰만 한다.
+ * */
+@Component
+@RequiredArgsConstructor
+public class SqlStatementInspector implements StatementInspector {
+
+    private final TableWriteTracker tableWriteTracker;
+    private final QueryCounter queryCounter;
+
+    @Override
+    public String inspect(String sql) {
+        tableWriteTracker.onStatement(sql);
+        queryCounter.onStatement(sql);
+        return sql;
+    }
+}
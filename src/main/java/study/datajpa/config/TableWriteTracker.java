@@ -0,0 +1,94 @@
+package study.datajpa.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 테이블별 쓰기 버전
+ * hibernate가 insert/update/delete SQL을 준비할 때 해당 테이블의 버전을 올리고, 그 트랜잭션이 끝날 때(커밋 / 롤백) 한 번 더 올린다.
+ * SQL 준비 시점만 올리면 커밋 전에 다른 트랜잭션이 커밋 전 데이터로 계산한 값을 새 버전으로 저장할 수 있어서,
+ * 트랜잭션이 끝난 뒤의 버전으로는 그 값이 다시 맞지 않게 한다. (hibernate 쿼리 캐시의 pre-invalidate / invalidate와 같은 방식)
+ * 캐시는 계산을 시작하기 전의 버전을 같이 저장해 두고, 버전이 바뀌었으면 버린다.
+ * (JdbcTemplate 등 hibernate를 거치지 않는 쓰기는 잡지 못한다)
+ * */
+@Component
+public class TableWriteTracker {
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long version(String table) {
+        AtomicLong version = versions.get(table.toLowerCase(Locale.ROOT));
+        return version == null ? 0 : version.get();
+    }
+
+    // 현재 트랜잭션에서 아직 끝나지 않은 쓰기가 있는지 - 있으면 커밋 전 데이터라서 캐시에 넣으면 안 된다.
+    public boolean hasPendingWrite(String table) {
+        @SuppressWarnings("unchecked")
+        Set<String> tables = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        return tables != null && tables.contains(table.toLowerCase(Locale.ROOT));
+    }
+
+    public void onStatement(String sql) {
+        String table = writtenTable(sql);
+        if (table != null) {
+            bump(table);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                writtenInTransaction().add(table);
+            }
+        }
+    }
+
+    private void bump(String table) {
+        versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    // 현재 트랜잭션에서 쓴 테이블 - 트랜잭션이 끝날 때 한 번 더 올린다.
+    @SuppressWarnings("unchecked")
+    private Set<String> writtenInTransaction() {
+        Set<String> tables = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (tables == null) {
+            Set<String> newTables = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, newTables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableWriteTracker.this);
+                    newTables.forEach(TableWriteTracker.this::bump);
+                }
+            });
+            tables = newTables;
+        }
+        return tables;
+    }
+
+    // "insert into member (...", "update member set ...", "delete from member where ..."
+    static String writtenTable(String sql) {
+        String s = sql.stripLeading().toLowerCase(Locale.ROOT);
+        int start;
+        if (s.startsWith("insert into ")) {
+            start = "insert into ".length();
+        } else if (s.startsWith("update ")) {
+            start = "update ".length();
+        } else if (s.startsWith("delete from ")) {
+            start = "delete from ".length();
+        } else if (s.startsWith("merge into ")) {
+            start = "merge into ".length();
+        } else {
+            return null;
+        }
+        int end = start;
+        while (end < s.length() && !Character.isWhitespace(s.charAt(end)) && s.charAt(end) != '(') {
+            end++;
+        }
+        String table = s.substring(start, end);
+        return table.substring(table.lastIndexOf('.') + 1); // 스키마 접두어 제거
+    }
+}
@@ -1,26 +1,62 @@
 package study.datajpa.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.JobStatus;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.CountMode;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.JobLauncher;
+import study.datajpa.service.MemberBatchJobService;
+import study.datajpa.service.MemberBulkUpdateService;
+import study.datajpa.service.MemberExportService;
+import study.datajpa.service.MemberFileFormat;
+import study.datajpa.service.MemberListingService;
+import study.datajpa.service.MemberLookupService;
+import study.datajpa.service.UsernameIndex;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int MAX_PAGE_SIZE = 2000;
+    private static final int MAX_SUGGESTIONS = 100;
+
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberBulkUpdateService memberBulkUpdateService;
+    private final MemberLookupService memberLookupService;
+    private final UsernameIndex usernameIndex;
+    private final MemberListingService memberListingService;
+    private final MemberBatchJobService memberBatchJobService;
+    private final JobLauncher jobLauncher;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id){
-        Member member = memberRepository.findById(id).get();
+        MemberDto member = memberLookupService.findById(id).get(); // 같은 id 동시 조회는 쿼리 한 번
         return member.getUsername();
     }
 
@@ -31,12 +67,136 @@ public class MemberController {
     }
 
     // Web 확장 - 페이징과 정렬
+    // count=EXACT|CACHED|APPROXIMATE|NONE 으로 total count 전략 선택 (생략하면 설정 기본값)
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5, sort = "username") Pageable pageable){
-        Page<Member> page = memberRepository.findAll(pageable);
-        Page<MemberDto> map = page.map(MemberDto::new);
+    public Slice<MemberDto> list(@PageableDefault(size = 5, sort = "username") Pageable pageable,
+                                 @RequestParam(value = "count", required = false) CountMode count){
+        Slice<Member> page = memberRepository.findAll(pageable, count);
+        Slice<MemberDto> map = page.map(MemberDto::new);
         return map;
     }
+
+    // /members 의 compact 버전 - 조회 결과를 바로 JSON으로 쓴다. (MemberListingService)
+    @GetMapping("/members/compact")
+    public void compact(@PageableDefault(size = 5, sort = "username") Pageable pageable,
+                        HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        memberListingService.writePage(response.getOutputStream(), pageable);
+    }
+
+    // 키셋 페이징 - username, id 순. cursor는 이전 응답의 nextCursor (잘못된 cursor는 400)
+    // username이 null인 회원은 나오지 않는다. (findKeysetFirst)
+    @GetMapping("/members/keyset")
+    public CursorPage<MemberDto> keyset(@RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "size", defaultValue = "10") int size){
+        PageRequest limit = PageRequest.of(0, clampSize(size) + 1); // 다음 페이지 확인용으로 하나 더
+        List<Member> rows;
+        if (cursor == null) {
+            rows = memberRepository.findKeysetFirst(limit);
+        } else {
+            MemberCursor after = decodeCursor(cursor);
+            rows = memberRepository.findKeysetAfter(after.getUsername(), after.getId(), limit);
+        }
+        return CursorPage.of(rows, clampSize(size),
+                m -> new MemberCursor(m.getId(), m.getUsername()), MemberDto::new);
+    }
+
+    // 키셋 페이징 - 나이로 조회, id 순
+    @GetMapping("/members/keyset/age/{age}")
+    public CursorPage<MemberDto> keysetByAge(@PathVariable("age") int age,
+                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                             @RequestParam(value = "size", defaultValue = "10") int size){
+        PageRequest limit = PageRequest.of(0, clampSize(size) + 1);
+        List<Member> rows;
+        if (cursor == null) {
+            rows = memberRepository.findKeysetByAgeFirst(age, limit);
+        } else {
+            rows = memberRepository.findKeysetByAgeAfter(age, decodeCursor(cursor).getId(), limit);
+        }
+        return CursorPage.of(rows, clampSize(size),
+                m -> new MemberCursor(m.getId(), null), MemberDto::new);
+    }
+
+    // 전체 export - 응답을 스트리밍으로 쓰기 때문에 회원 수와 상관없이 메모리가 일정
+    // /members/export?format=csv (기본은 ndjson, 지원하지 않는 형식은 400)
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format){
+        MemberFileFormat exportFormat;
+        try {
+            exportFormat = MemberFileFormat.fromName(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        MediaType contentType = MediaType.parseMediaType(exportFormat.getContentType());
+        StreamingResponseBody body = out -> memberExportService.export(out, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(body);
+    }
+
+    // username 자동완성 - 메모리 인덱스에서 prefix 검색 (DB 조회 없음)
+    @GetMapping("/members/usernames")
+    public List<String> usernames(@RequestParam(value = "prefix", defaultValue = "") String prefix,
+                                  @RequestParam(value = "limit", defaultValue = "10") int limit){
+        return usernameIndex.search(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    // 인덱스 크기 / 메모리 사용량
+    @GetMapping("/members/usernames/stats")
+    public Map<String, Object> usernameIndexStats(){
+        return usernameIndex.stats();
+    }
+
+    // 인덱스 다시 만들기 - JPQL 벌크 / 네이티브 쿼리로 username을 바꾼 뒤
+    @PostMapping("/members/usernames/rebuild")
+    public Map<String, Object> rebuildUsernameIndex(){
+        usernameIndex.rebuild();
+        return usernameIndex.stats();
+    }
+
+    // 청크 단위 벌크 수정 - 백그라운드로 실행하고 202 + 상태 URL, 실패하면 같은 jobId로 다시 호출
+    @PostMapping("/members/bulk/age-plus")
+    public ResponseEntity<JobStatus> bulkAgePlus(@RequestParam("age") int age,
+                                                 @RequestParam(value = "jobId", required = false) String jobId){
+        String id = jobId == null ? "age-plus-" + UUID.randomUUID() : jobId;
+        return accepted(memberBulkUpdateService.launchAgePlus(age, id)); // 수정자는 이 요청 기준
+    }
+
+    // 회원 팀 재배치 - 엔티티 단위 청크 배치, 백그라운드로 실행. 실패하면 같은 jobId로 다시 호출
+    @PostMapping("/members/batch/rebalance-teams")
+    public ResponseEntity<JobStatus> rebalanceTeams(@RequestParam(value = "jobId", required = false) String jobId){
+        String id = jobId == null ? "rebalance-teams-" + UUID.randomUUID() : jobId;
+        return accepted(jobLauncher.launch(id, "rebalance-teams", () -> memberBatchJobService.rebalanceTeams(id)));
+    }
+
+    // 작업 상태 - COMPLETED면 result에 BulkUpdateResult / BatchJobResult
+    @GetMapping("/members/jobs/{jobId}")
+    public ResponseEntity<JobStatus> jobStatus(@PathVariable("jobId") String jobId){
+        return jobLauncher.status(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 클라이언트가 보낸 토큰이 잘못된 것이므로 500이 아니라 400
+    private static MemberCursor decodeCursor(String cursor) {
+        try {
+            return MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private ResponseEntity<JobStatus> accepted(JobStatus status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/members/jobs/" + status.getJobId()))
+                .body(status);
+    }
+
+    // application.yml의 max-page-size와 맞춘다.
+    private int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 //    @PostConstruct // 애플리케이션이 올라올 떄 이게 한번 실행됨.
 //    public void init(){
 //        for(int i = 0; i< 100; i++){
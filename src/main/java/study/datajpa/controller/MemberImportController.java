@@ -0,0 +1,30 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.ImportResult;
+import study.datajpa.service.MemberFileFormat;
+import study.datajpa.service.MemberImportService;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberImportController {
+
+    private final MemberImportService memberImportService;
+
+    // 요청 바디를 메모리에 올리지 않고 스트림 그대로 읽는다.
+    // curl -X POST -H 'Content-Type: text/csv' --data-binary @members.csv localhost:8080/members/import
+    @PostMapping(value = "/members/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ImportResult importMembers(HttpServletRequest request) throws IOException {
+        try (Reader reader = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+            return memberImportService.importMembers(reader, MemberFileFormat.fromContentType(request.getContentType()));
+        }
+    }
+}
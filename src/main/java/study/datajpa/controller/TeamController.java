@@ -0,0 +1,23 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.repository.TeamRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+
+    // 팀 + 회원 목록 - 페이지 크기와 상관없이 쿼리 3번
+    @GetMapping("/teams")
+    public Page<TeamDto> list(@PageableDefault(size = 10, sort = "id") Pageable pageable) {
+        return teamRepository.findPageWithMembers(pageable).map(TeamDto::new);
+    }
+}
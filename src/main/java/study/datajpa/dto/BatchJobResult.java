@@ -0,0 +1,25 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class BatchJobResult {
+
+    private final String jobId;
+    private final int partitions;
+    private final int skippedPartitions; // 이전 실행에서 이미 끝난 파티션
+    private final int chunks;            // 이번 실행에서 커밋한 청크 수
+    private final long processedRows;    // 이번 실행에서 처리한 row 수
+    private final long elapsedMillis;
+
+    public BatchJobResult(String jobId, int partitions, int skippedPartitions, int chunks, long processedRows, long elapsedMillis) {
+        this.jobId = jobId;
+        this.partitions = partitions;
+        this.skippedPartitions = skippedPartitions;
+        this.chunks = chunks;
+        this.processedRows = processedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class BulkUpdateResult {
+
+    private final String jobId;
+    private final int chunks;        // 전체 청크 수
+    private final int skippedChunks; // 이전 실행에서 이미 끝난 청크
+    private final long updatedRows;  // 이번 실행에서 수정한 row 수
+    private final long elapsedMillis;
+
+    public BulkUpdateResult(String jobId, int chunks, int skippedChunks, long updatedRows, long elapsedMillis) {
+        this.jobId = jobId;
+        this.chunks = chunks;
+        this.skippedChunks = skippedChunks;
+        this.updatedRows = updatedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
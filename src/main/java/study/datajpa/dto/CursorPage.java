@@ -0,0 +1,42 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 키셋 페이징 결과
+ * totalCount 없이 content + 다음 페이지 커서만 내려준다. (Slice와 비슷)
+ * */
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor; // 마지막 페이지면 null
+    private final boolean hasNext;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    /**
+     * size + 1 개를 조회한 결과로 다음 페이지 존재 여부를 판단한다.
+     * */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, MemberCursor> cursorOf,
+                                          Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+
+        List<T> content = new ArrayList<>(page.size());
+        for (E row : page) {
+            content.add(mapper.apply(row));
+        }
+        return new CursorPage<>(content, nextCursor);
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class ImportResult {
+
+    private final long rows;
+    private final long teamsCreated;
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+
+    public ImportResult(long rows, long teamsCreated, long elapsedMillis) {
+        this.rows = rows;
+        this.teamsCreated = teamsCreated;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? rows * 1000 : rows * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,34 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * 백그라운드로 실행한 작업의 상태 (JobLauncher)
+ * state: QUEUED -> RUNNING -> COMPLETED / FAILED
+ * */
+@Getter
+@ToString
+public class JobStatus {
+
+    private final String jobId;
+    private final String jobName;
+    private final String state;
+    private final LocalDateTime submittedDate;
+    private final LocalDateTime finishedDate;
+    private final Object result; // COMPLETED일 때 작업 결과 (BulkUpdateResult, BatchJobResult)
+    private final String error;  // FAILED일 때
+
+    public JobStatus(String jobId, String jobName, String state, LocalDateTime submittedDate,
+                     LocalDateTime finishedDate, Object result, String error) {
+        this.jobId = jobId;
+        this.jobName = jobName;
+        this.state = state;
+        this.submittedDate = submittedDate;
+        this.finishedDate = finishedDate;
+        this.result = result;
+        this.error = error;
+    }
+}
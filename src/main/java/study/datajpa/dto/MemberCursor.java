@@ -0,0 +1,41 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ * 마지막으로 읽은 row의 (username, id)를 담고, 클라이언트에는 불투명한 토큰으로 내려준다.
+ * */
+@Getter
+public class MemberCursor {
+
+    private final Long id;
+    private final String username; // age 기준 키셋에서는 null
+
+    public MemberCursor(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+
+    // "id:username" -> Base64 URL-safe
+    public String encode() {
+        String raw = id + ":" + (username == null ? "" : username);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':'); // username에 ':'가 있어도 첫 번째 구분자만 본다
+            Long id = Long.valueOf(raw.substring(0, sep));
+            String username = raw.substring(sep + 1);
+            return new MemberCursor(id, username);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import java.time.LocalDateTime;
+
+/**
+ * 청크 배치 작업 (ChunkedJobRunner)
+ * 처음 실행할 때 정한 작업 파라미터(예: 회원을 배정할 팀 id 목록)를 저장해 두고,
+ * 같은 jobId로 다시 실행하면 그 사이에 데이터가 바뀌어도 처음 값으로 이어서 처리한다. (BulkUpdateJob.parameters와 같은 역할)
+ * */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BatchJob {
+
+    @Id
+    @Column(name = "job_id")
+    private String id;
+
+    private String jobName;
+
+    @Lob
+    private String parameters;
+
+    private LocalDateTime createdDate;
+
+    public BatchJob(String id, String jobName, String parameters) {
+        this.id = id;
+        this.jobName = jobName;
+        this.parameters = parameters;
+        this.createdDate = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,65 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * 청크 배치 작업의 파티션 하나 (ChunkedJobRunner)
+ * 키 범위 [fromKey, toKey]를 lastKey 다음부터 청크 단위로 처리한다.
+ * lastKey는 청크와 같은 트랜잭션에서 갱신되므로, 재시작하면 마지막으로 커밋된 키 다음부터 이어서 한다.
+ * */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"jobId", "partitionNo"}))
+public class BatchJobPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "batch_job_partition_seq")
+    @GenericGenerator(name = "batch_job_partition_seq", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "batch_job_partition_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
+    private Long id;
+
+    private String jobId;
+    private String jobName;
+    private int partitionNo;
+    private long fromKey;
+    private long toKey;
+    private long lastKey;
+    private long processedRows;
+    private int chunks;
+    private boolean completed;
+    private LocalDateTime updatedDate;
+
+    public BatchJobPartition(String jobId, String jobName, int partitionNo, long fromKey, long toKey) {
+        this.jobId = jobId;
+        this.jobName = jobName;
+        this.partitionNo = partitionNo;
+        this.fromKey = fromKey;
+        this.toKey = toKey;
+        this.lastKey = fromKey - 1;
+        this.updatedDate = LocalDateTime.now();
+    }
+
+    public void commitChunk(long lastKey, int rows, boolean completed) {
+        this.lastKey = lastKey;
+        this.processedRows += rows;
+        this.chunks++;
+        this.completed = completed;
+        this.updatedDate = LocalDateTime.now();
+    }
+}
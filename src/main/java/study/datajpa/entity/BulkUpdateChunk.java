@@ -0,0 +1,47 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * 완료된 청크 기록
+ * 청크의 update와 같은 트랜잭션에서 저장되므로, 기록이 있으면 그 청크는 정확히 한 번 반영된 것이다.
+ * */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"jobId", "fromId"})) // 같은 청크를 두 번 반영하지 않도록
+public class BulkUpdateChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bulk_update_chunk_seq")
+    @GenericGenerator(name = "bulk_update_chunk_seq", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "bulk_update_chunk_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
+    private Long id;
+
+    private String jobId;
+    private long fromId;
+    private int updatedRows;
+    private LocalDateTime completedDate;
+
+    public BulkUpdateChunk(String jobId, long fromId, int updatedRows) {
+        this.jobId = jobId;
+        this.fromId = fromId;
+        this.updatedRows = updatedRows;
+        this.completedDate = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 청크 단위 벌크 수정 작업
+ * 처음 실행할 때 id 범위와 청크 크기를 고정해 두고, 재시작하면 같은 계획으로 남은 청크만 실행한다.
+ * */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BulkUpdateJob {
+
+    @Id
+    @Column(name = "job_id")
+    private String id;
+
+    @Column(length = 2000)
+    private String updateQuery;
+    @Column(length = 2000)
+    private String parameters;
+
+    private Long minId; // 대상이 없으면 null
+    private Long maxId;
+    private int chunkSize;
+    private boolean completed;
+
+    private LocalDateTime createdDate;
+    private LocalDateTime completedDate;
+
+    public BulkUpdateJob(String id, String updateQuery, String parameters, Long minId, Long maxId, int chunkSize) {
+        this.id = id;
+        this.updateQuery = updateQuery;
+        this.parameters = parameters;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.chunkSize = chunkSize;
+        this.createdDate = LocalDateTime.now();
+    }
+
+    public int chunkCount() {
+        return minId == null ? 0 : (int) ((maxId - minId) / chunkSize + 1);
+    }
+
+    public long chunkStart(int index) {
+        return minId + (long) index * chunkSize;
+    }
+
+    public void complete() {
+        this.completed = true;
+        this.completedDate = LocalDateTime.now();
+    }
+}
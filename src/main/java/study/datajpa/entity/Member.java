@@ -1,6 +1,12 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -13,11 +19,27 @@ import javax.persistence.*;
         query = "select m from Member m where m.username = :username"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+// 자주 쓰는 조회 조건 인덱스 - 실행 계획은 MemberQueryPlanTest에서 확인
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username, member_id"), // findByUsername, 키셋(username, id) seek + 정렬
+        @Index(name = "idx_member_age_username", columnList = "age, username"),  // findByAge + order by username
+        @Index(name = "idx_member_team_id", columnList = "team_id"),             // 팀 조인, Team.members 로딩
+        @Index(name = "idx_member_last_modified_date", columnList = "last_modified_date")
+})
+@Cacheable
+@BatchSize(size = 100) // 쿼리 캐시 hit(findByNames)는 id만 꺼내므로, member 리전에 없는 회원은 where member_id in (...) 으로 최대 100개씩
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member") // 2차 캐시, 리전 설정은 application.conf
 public class Member extends BaseEntity{
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     @Column(name = "member_id")
     private Long id;
+    @Version // 낙관적 락 - 수정할 때마다 +1, 다른 트랜잭션이 먼저 바꿨으면 OptimisticLockException
+    private Long version;
     private String username;
     private int age;
     @ManyToOne(fetch = FetchType.LAZY)
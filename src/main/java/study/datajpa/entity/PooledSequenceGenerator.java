@@ -0,0 +1,35 @@
+package study.datajpa.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * pooled-lo 시퀀스 전략
+ * 시퀀스를 한 번 호출할 때 increment_size 만큼의 id를 미리 확보해서 save() 마다 시퀀스를 조회하지 않는다.
+ * allocation size는 엔티티의 @Parameter 값이 기본이고,
+ * spring.jpa.properties.datajpa.id.increment_size 로 전체를 덮어쓸 수 있다.
+ * */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "study.datajpa.entity.PooledSequenceGenerator";
+    public static final String INCREMENT_SIZE_SETTING = "datajpa.id.increment_size";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object incrementSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .get(INCREMENT_SIZE_SETTING);
+        if (incrementSize != null) {
+            params.setProperty(INCREMENT_PARAM, incrementSize.toString());
+        }
+        if (!params.containsKey(OPT_PARAM)) {
+            params.setProperty(OPT_PARAM, "pooled-lo");
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -1,6 +1,12 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,14 +16,29 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Table(indexes = {
+        @Index(name = "idx_team_name", columnList = "name"), // findFirstByName
+        @Index(name = "idx_team_last_modified_date", columnList = "last_modified_date")
+})
+@Cacheable
+@BatchSize(size = 100) // Member.team 프록시를 초기화할 때 where team_id in (...) 으로 최대 100개씩
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team") // 2차 캐시, 리전 설정은 application.conf
 public class Team extends BaseEntity{
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     @Column(name="team_id")
     private Long id;
 
+    @Version
+    private Long version;
+
     private String name;
 
+    @BatchSize(size = 100) // 팀 목록의 members를 팀마다가 아니라 in 쿼리로 100개 팀씩
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
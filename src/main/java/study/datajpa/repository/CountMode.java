@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+/**
+ * 페이징 count 쿼리 전략
+ * */
+public enum CountMode {
+    EXACT,       // 매번 count(*) - 기존 Page 방식
+    CACHED,      // count(*) 결과를 TTL 동안 캐시, 테이블에 쓰기가 생기면 무효화
+    APPROXIMATE, // DB 통계의 예상 row 수 (조건 없는 전체 count만, 조건이 있으면 CACHED)
+    NONE,        // count 없이 limit + 1 로 다음 페이지만 확인 (Slice)
+    ASYNC        // content와 count(*)를 동시에 실행, count가 timeout 안에 안 끝나면 Slice
+}
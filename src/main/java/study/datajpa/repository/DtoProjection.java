@@ -0,0 +1,135 @@
+package study.datajpa.repository;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 생성자 기반 DTO 프로젝션
+ * DTO 타입마다 한 번만 JPQL select 절과 생성자 MethodHandle을 만들어 두고,
+ * 조회 결과 Object[] 를 바로 생성자에 넘긴다. (row 마다 프록시, SpEL 평가, 리플렉션 없음)
+ *
+ * 생성자 파라미터 이름으로 엔티티 속성을 찾는다. (-parameters 컴파일 옵션 필요, 스프링 부트 플러그인 기본값)
+ * - username  -> m.username
+ * - teamName  -> team.name (연관관계 이름 + 속성 이름, left join)
+ * 모든 파라미터가 매핑되는 생성자 중 파라미터가 가장 많은 것을 쓴다.
+ * */
+final class DtoProjection<T> {
+
+    private final String selectFrom; // "select m.username, team.name from Member m left join m.team team"
+    private final MethodHandle constructor; // (Object[]) -> Object
+    private final boolean singleColumn;
+
+    private DtoProjection(String selectFrom, MethodHandle constructor, boolean singleColumn) {
+        this.selectFrom = selectFrom;
+        this.constructor = constructor;
+        this.singleColumn = singleColumn;
+    }
+
+    static <T> DtoProjection<T> of(Class<T> type, EntityType<?> entity, String alias) {
+        for (Constructor<?> candidate : constructorsByArity(type)) {
+            List<String> paths = new ArrayList<>();
+            Set<String> joins = new LinkedHashSet<>();
+            if (resolve(candidate, entity, alias, paths, joins)) {
+                StringBuilder jpql = new StringBuilder("select ")
+                        .append(String.join(", ", paths))
+                        .append(" from ").append(entity.getName()).append(' ').append(alias);
+                for (String join : joins) {
+                    jpql.append(" left join ").append(alias).append('.').append(join).append(' ').append(join);
+                }
+                return new DtoProjection<>(jpql.toString(), spreader(candidate), paths.size() == 1);
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + ": " + entity.getName()
+                + " 속성과 이름이 모두 맞는 public 생성자가 없습니다.");
+    }
+
+    String selectFrom() {
+        return selectFrom;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<T> map(List<?> rows) {
+        List<T> result = new ArrayList<>(rows.size());
+        try {
+            for (Object row : rows) {
+                // 컬럼이 하나면 hibernate가 Object[] 대신 값 자체를 돌려준다.
+                Object[] args = singleColumn ? new Object[]{row} : (Object[]) row;
+                Object dto = constructor.invokeExact(args);
+                result.add((T) dto);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    private static boolean resolve(Constructor<?> constructor, EntityType<?> entity, String alias,
+                                   List<String> paths, Set<String> joins) {
+        for (Parameter parameter : constructor.getParameters()) {
+            String name = parameter.getName();
+            if (hasAttribute(entity, name) && !entity.getAttribute(name).isAssociation()) {
+                paths.add(alias + "." + name);
+                continue;
+            }
+            String nested = nestedPath(entity, name);
+            if (nested == null) {
+                return false;
+            }
+            joins.add(nested.substring(0, nested.indexOf('.')));
+            paths.add(nested);
+        }
+        return true;
+    }
+
+    // teamName -> team.name
+    private static String nestedPath(EntityType<?> entity, String name) {
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isUpperCase(name.charAt(i))) {
+                continue;
+            }
+            String association = name.substring(0, i);
+            if (hasAttribute(entity, association)
+                    && entity.getAttribute(association).getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE) {
+                return association + "." + Character.toLowerCase(name.charAt(i)) + name.substring(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasAttribute(EntityType<?> entity, String name) {
+        return entity.getAttributes().stream().anyMatch(attribute -> attribute.getName().equals(name));
+    }
+
+    private static List<Constructor<?>> constructorsByArity(Class<?> type) {
+        List<Constructor<?>> constructors = new ArrayList<>();
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterCount() > 0 && Modifier.isPublic(constructor.getModifiers())) {
+                constructors.add(constructor);
+            }
+        }
+        constructors.sort((a, b) -> b.getParameterCount() - a.getParameterCount());
+        return constructors;
+    }
+
+    private static MethodHandle spreader(Constructor<?> constructor) {
+        try {
+            return MethodHandles.publicLookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(constructor + " 에 접근할 수 없습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package study.datajpa.repository;
+
+/**
+ * 벌크 insert 중 이미 있는 id를 만났을 때
+ * */
+public enum DuplicateMode {
+    FAIL,   // 일반 insert - DuplicateKeyException, 트랜잭션 롤백
+    IGNORE, // 이미 있는 row는 건너뛴다
+    UPSERT  // 이미 있는 row는 새 값으로 덮어쓴다
+}
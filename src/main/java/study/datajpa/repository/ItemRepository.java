@@ -3,5 +3,6 @@ package study.datajpa.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import study.datajpa.entity.Item;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+// Item의 id는 String (직접 할당)
+public interface ItemRepository extends JpaRepository<Item, String>, ItemRepositoryCustom {
 }
@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * insert 전용 벌크 저장
+     * saveAll은 isNew() 판단이 틀리면 row마다 merge(select + insert)가 되고, 영속성 컨텍스트에도 전부 쌓인다.
+     * 여기서는 존재 여부를 확인하지 않고 JDBC 배치로 insert만 보낸다. 중복 id는 DB가 mode에 따라 처리한다.
+     * createdDate는 호출 시각 하나로 채운다. (엔티티 리스너를 거치지 않음)
+     * @return insert(UPSERT면 update 포함)된 row 수. 드라이버가 배치 결과 개수를 주지 않으면 그만큼 빠진다.
+     * */
+    long insertAll(Collection<Item> items, DuplicateMode mode);
+}
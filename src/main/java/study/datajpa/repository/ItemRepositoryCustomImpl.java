@@ -0,0 +1,97 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Item 벌크 insert - JdbcTemplate 배치
+ * JPA 트랜잭션 안에서 호출하면 같은 커넥션을 쓴다. (JpaTransactionManager)
+ * 중복 처리 SQL은 DB마다 다르다. (H2 MERGE, PostgreSQL ON CONFLICT, MySQL INSERT IGNORE / ON DUPLICATE KEY)
+ * */
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    static final String INSERT = "insert into item (id, created_date) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final String ignoreSql;
+    private final String upsertSql;
+
+    public ItemRepositoryCustomImpl(DataSource dataSource,
+                                    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+        String product = databaseProduct(dataSource);
+        if (product.contains("h2")) {
+            this.ignoreSql = "merge into item t" +
+                    " using (values (cast(? as varchar(255)), cast(? as timestamp))) s(id, created_date) on t.id = s.id" +
+                    " when not matched then insert (id, created_date) values (s.id, s.created_date)";
+            this.upsertSql = "merge into item (id, created_date) key (id) values (?, ?)";
+        } else if (product.contains("postgres")) {
+            this.ignoreSql = INSERT + " on conflict (id) do nothing";
+            this.upsertSql = INSERT + " on conflict (id) do update set created_date = excluded.created_date";
+        } else if (product.contains("mysql") || product.contains("mariadb")) {
+            this.ignoreSql = "insert ignore into item (id, created_date) values (?, ?)";
+            this.upsertSql = INSERT + " on duplicate key update created_date = values(created_date)";
+        } else {
+            this.ignoreSql = null;
+            this.upsertSql = null;
+        }
+    }
+
+    @Override
+    @Transactional
+    public long insertAll(Collection<Item> items, DuplicateMode mode) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        Timestamp createdDate = Timestamp.valueOf(LocalDateTime.now());
+        int[][] results = jdbcTemplate.batchUpdate(sql(mode), items, batchSize, (ps, item) -> {
+            ps.setString(1, item.getId());
+            ps.setTimestamp(2, createdDate);
+        });
+        long rows = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                rows += Math.max(count, 0); // SUCCESS_NO_INFO(-2)는 세지 않는다
+            }
+        }
+        return rows;
+    }
+
+    private String sql(DuplicateMode mode) {
+        switch (mode) {
+            case IGNORE:
+                return required(ignoreSql, mode);
+            case UPSERT:
+                return required(upsertSql, mode);
+            default:
+                return INSERT;
+        }
+    }
+
+    private static String required(String sql, DuplicateMode mode) {
+        if (sql == null) {
+            throw new UnsupportedOperationException("이 DB에서는 " + mode + " 벌크 insert를 지원하지 않습니다.");
+        }
+        return sql;
+    }
+
+    private static String databaseProduct(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        } catch (SQLException e) {
+            return "";
+        }
+    }
+}
@@ -1,29 +1,83 @@
 package study.datajpa.repository;
 
+import org.hibernate.Hibernate;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.AuditStampProvider;
+import study.datajpa.entity.BaseEntity;
 import study.datajpa.entity.Member;
+import study.datajpa.service.UsernameIndex;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 @Repository
 public class MemberJPARepository {
+    // JPQL은 상수로 두고 기동 시 미리 파싱한다. (QueryWarmup)
+    static final String FIND_ALL = "select m from Member m";
+    static final String COUNT = "select count(m) from Member m";
+    static final String FIND_BY_USERNAME_AND_AGE_GREATER_THAN = "select m from Member m where m.username =: username and m.age >: age";
+    static final String FIND_BY_PAGE = "select m from Member m where m.age = :age order by m.username desc";
+    static final String TOTAL_COUNT = "select count(m) from Member m where m.age = :age";
+    static final String BULK_AGE_PLUS = "update Member m set m.age = m.age + 1, m.version = m.version + 1," +
+            " m.lastModifiedDate = :modifiedDate, m.lastModifiedBy = :modifiedBy where m.age >= :age";
+    static final String FIND_USERNAMES_BY_IDS = "select m.username from Member m where m.id in :ids";
+    private static final int USERNAME_LOOKUP_CHUNK = 1000; // in 절 크기
+
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private AuditStampProvider auditStampProvider;
+
+    @Autowired
+    private AuditingHandler auditingHandler; // @EnableJpaAuditing이 등록하는 jpaAuditingHandler
+
+    @Autowired
+    private ObjectProvider<UsernameIndex> usernameIndex;
+
     public Member save(Member member) {
         em.persist(member);
         return member;
     }
 
+    // persist는 flush 시점까지 insert를 미뤄두기 때문에 hibernate.jdbc.batch_size 단위로 묶여서 나간다.
+    // (id가 pooled-lo 시퀀스라 persist 시점에 insert가 필요 없음)
+    public List<Member> saveAll(List<Member> members) {
+        for (Member member : members) {
+            em.persist(member);
+        }
+        return members;
+    }
+
     public void delete(Member member) {
         em.remove(member);
     }
 
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class)
+        return em.createQuery(FIND_ALL, Member.class)
                 .getResultList();
     }
 
@@ -32,7 +86,7 @@ public class MemberJPARepository {
         return Optional.ofNullable(member);
     }
     public long count() {
-        return em.createQuery("select count(m) from Member m", Long.class)
+        return em.createQuery(COUNT, Long.class)
                 .getSingleResult();
     }
     public Member find(Long id) {
@@ -40,7 +94,7 @@ public class MemberJPARepository {
     }
 
     public List<Member> findByusernameAndAgeGreaterThan(String username, int age){
-        return em.createQuery("select m from Member m where m.username =: username and m.age >: age")
+        return em.createQuery(FIND_BY_USERNAME_AND_AGE_GREATER_THAN)
                 .setParameter("username", username)
                 .setParameter("age", age)
                 .getResultList();
@@ -57,7 +111,7 @@ public class MemberJPARepository {
      * */
     // offset : 몇 번쨰 부터 // limit : 몇 개를 가져와
     public List<Member> findByPage(int age, int offset, int limit){
-        return em.createQuery("select m from Member m where m.age = :age order by m.username desc")
+        return em.createQuery(FIND_BY_PAGE)
                 .setParameter("age", age)
                 .setFirstResult(offset) // 몇 번째 부터
                 .setMaxResults(limit) // 몇 개를 가져올건데
@@ -66,7 +120,7 @@ public class MemberJPARepository {
     // Total count는 보통 세트로 가져온다.
     // 여기에는 sorting condition, 즉 order by desc가 없다. 필요가 없으니 뺴줬고 성능 최적화
     public long totlaCount(int age){
-        return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+        return em.createQuery(TOTAL_COUNT, Long.class)
                 .setParameter("age", age)
                 .getSingleResult();
     }
@@ -77,10 +131,153 @@ public class MemberJPARepository {
      * */
     // age보다 크거나 같은 애들의 age를 +1
     public int bulkAgePlus(int age){
-        int resultCount = em.createQuery("update Member m set m.age = m.age + 1" +
-                        " where m.age >= :age")
+        int resultCount = auditStampProvider.current().bindTo(em.createQuery(BULK_AGE_PLUS))
                 .setParameter("age", age)
                 .executeUpdate(); // 업데이트 쿼리 날릴 때 // 리턴타입은 int
+        // 2차 캐시의 member 리전은 JPQL 벌크 연산 시 hibernate가 무효화한다.
+        // 1차 캐시(영속성 컨텍스트)는 그대로라서 @Modifying(clearAutomatically = true)처럼 직접 비운다.
+        em.clear();
         return resultCount;
     }
+
+    /**
+     * StatelessSession 쓰기 - 대량 적재 / 수정 / 삭제용 (Member, Team)
+     * 영속성 컨텍스트에 올리지 않으므로 1차 캐시, 변경 감지, 쓰기 지연이 없고 호출 즉시 hibernate.jdbc.batch_size 단위로 전송한다.
+     * 현재 트랜잭션의 커넥션을 그대로 쓰므로 커밋 / 롤백은 호출한 트랜잭션을 따른다.
+     * - auditing 리스너를 거치지 않으므로 AuditingHandler로 직접 채운다.
+     * - @Version은 hibernate가 올리고 확인한다. (다른 트랜잭션이 먼저 바꿨으면 StaleStateException)
+     * - 2차 캐시를 거치지 않으므로 수정 / 삭제한 id는 member / team 리전에서 뺀다. (바로 한 번, 트랜잭션이 끝날 때 한 번 더)
+     * - 쿼리 캐시도 hibernate가 무효화하지 않으므로 쓴 테이블의 쿼리 결과를 직접 무효화한다.
+     * - 연관관계 편의 메소드, cascade는 동작하지 않는다.
+     * - UsernameIndex 리스너도 동작하지 않으므로 바뀌기 전 / 후 username을 모아서 커밋 후 UsernameIndex.reconcile()
+     *   (수정 / 삭제는 바뀌기 전 username을 id로 한 번 더 조회한다)
+     * - 같은 트랜잭션에서 이미 조회한 엔티티는 갱신되지 않는다. 수정 / 삭제한 엔티티를 다시 쓰려면 다시 조회한다.
+     * */
+    @Transactional
+    public int insertStateless(Collection<? extends BaseEntity> entities) {
+        return stateless(entities, (session, entity) -> {
+            auditingHandler.markCreated(entity);
+            session.insert(entity); // id는 시퀀스(pooled-lo)에서 받아서 entity에 채운다.
+        }, false, usernames(entities));
+    }
+
+    @Transactional
+    public int updateStateless(Collection<? extends BaseEntity> entities) {
+        Set<String> usernames = storedUsernames(entities);
+        usernames.addAll(usernames(entities));
+        return stateless(entities, (session, entity) -> {
+            auditingHandler.markModified(entity);
+            session.update(entity); // 모든 컬럼 update (변경 감지가 없으므로)
+        }, true, usernames);
+    }
+
+    @Transactional
+    public int deleteStateless(Collection<? extends BaseEntity> entities) {
+        return stateless(entities, StatelessSession::delete, true, storedUsernames(entities));
+    }
+
+    private int stateless(Collection<? extends BaseEntity> entities, BiConsumer<StatelessSession, BaseEntity> write,
+                          boolean evictEntities, Set<String> usernames) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        em.flush(); // 영속성 컨텍스트에 쌓인 insert(예: 새 팀)가 먼저 나가야 FK가 맞는다.
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        // 쿼리 캐시 무효화 - 일반 세션이면 hibernate가 하는 일을 대신한다. (쓰기 전에 pre-invalidate, 끝날 때 invalidate)
+        String[] spaces = querySpaces(session.getFactory(), entities);
+        TimestampsCache timestamps = session.getFactory().getCache().getTimestampsCache();
+        timestamps.preInvalidate(spaces, session);
+
+        Connection connection = session.doReturningWork(c -> c);
+        try (StatelessSession stateless = session.getSessionFactory().openStatelessSession(connection)) {
+            for (BaseEntity entity : entities) {
+                write.accept(stateless, entity);
+            }
+            // 커밋은 JPA 세션 쪽이라 stateless 세션의 남은 배치를 직접 보낸다. (close는 보내지 않고 버린다)
+            ((SharedSessionContractImplementor) stateless).getJdbcCoordinator().executeBatch();
+        }
+
+        Runnable evict = evictEntities ? entityEviction(entities) : () -> { };
+        evict.run();
+        // 커밋 전에 같은 트랜잭션에서 다시 읽으면 커밋 안 된 상태가 캐시에 올라가므로 끝날 때 한 번 더
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (!usernames.isEmpty()) {
+                    usernameIndex.ifAvailable(index -> index.reconcile(usernames));
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                evict.run();
+                timestamps.invalidate(spaces, session);
+            }
+        });
+        return entities.size();
+    }
+
+    // 새로 쓰는 Member의 username
+    private static Set<String> usernames(Collection<? extends BaseEntity> entities) {
+        Set<String> usernames = new HashSet<>();
+        for (BaseEntity entity : entities) {
+            if (entity instanceof Member && ((Member) entity).getUsername() != null) {
+                usernames.add(((Member) entity).getUsername());
+            }
+        }
+        return usernames;
+    }
+
+    // DB에 저장된 (바뀌기 전) Member의 username
+    private Set<String> storedUsernames(Collection<? extends BaseEntity> entities) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Object> ids = new ArrayList<>();
+        for (BaseEntity entity : entities) {
+            if (entity instanceof Member) {
+                ids.add(util.getIdentifier(entity));
+            }
+        }
+        Set<String> usernames = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += USERNAME_LOOKUP_CHUNK) {
+            List<Object> chunk = ids.subList(from, Math.min(from + USERNAME_LOOKUP_CHUNK, ids.size()));
+            for (String username : em.createQuery(FIND_USERNAMES_BY_IDS, String.class)
+                    .setParameter("ids", chunk)
+                    .getResultList()) {
+                if (username != null) {
+                    usernames.add(username);
+                }
+            }
+        }
+        return usernames;
+    }
+
+    private Runnable entityEviction(Collection<? extends BaseEntity> entities) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Class<?>> types = new ArrayList<>(entities.size());
+        List<Object> ids = new ArrayList<>(entities.size());
+        for (BaseEntity entity : entities) {
+            types.add(Hibernate.getClass(entity));
+            ids.add(util.getIdentifier(entity));
+        }
+        Cache cache = em.getEntityManagerFactory().getCache();
+        return () -> {
+            for (int i = 0; i < ids.size(); i++) {
+                cache.evict(types.get(i), ids.get(i));
+            }
+        };
+    }
+
+    // 엔티티가 매핑된 테이블들 (member, team)
+    private static String[] querySpaces(SessionFactoryImplementor factory, Collection<? extends BaseEntity> entities) {
+        Set<Class<?>> types = new HashSet<>();
+        Set<String> spaces = new LinkedHashSet<>();
+        for (BaseEntity entity : entities) {
+            if (types.add(Hibernate.getClass(entity))) {
+                for (Serializable space : factory.getMetamodel().entityPersister(Hibernate.getClass(entity)).getQuerySpaces()) {
+                    spaces.add((String) space);
+                }
+            }
+        }
+        return spaces.toArray(new String[0]);
+    }
 }
@@ -12,11 +12,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MemberQueryRepository {
 
+    static final String FIND_ALL_MEMBERS = "select m from Member m";
+
     private final EntityManager em;
 
     // 아주 복잡한 JPQL이라 가정!
     public List<Member> findAllMembers() {
-        return em.createQuery("selelct m from Member m")
+        return em.createQuery(FIND_ALL_MEMBERS)
                 .getResultList();
     }
 }
@@ -5,15 +5,20 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.dto.UsernameOnlyDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+// 조회 메소드는 readOnly 트랜잭션 -> replica 로 라우팅 (DataSourceConfig). 쓰기 메소드는 @Transactional로 덮어쓴다.
+@Transactional(readOnly = true)
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
@@ -32,10 +37,45 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<String> findUsernameList();
 
     // MemberDto 로 반환
+    // 쿼리 결과 캐시 - member / team 테이블에 쓰기가 있으면 무효화 (리전 설정은 application.conf의 member-query)
+    // 조인 결과 전체가 엔트리 하나라서 row 수만큼 무게를 센다. (QueryResultWeigher)
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "member-query")
+    })
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    // MemberDto 스트림 - 전체 export 용
+    // 엔티티가 아니라 DTO라 영속성 컨텍스트에 쌓이지 않고, fetchSize 만큼씩 커서로 읽는다.
+    // 트랜잭션 안에서 호출하고 반드시 close 해야 한다. (try-with-resources)
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+            " from Member m left join m.team t order by m.id")
+    Stream<MemberDto> streamMemberDto();
+
+    // username 스트림 - UsernameIndex 생성용 (정렬된 순서로 받아서 중복을 바로 합친다)
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select m.username from Member m where m.username is not null order by m.username")
+    Stream<String> streamUsernames();
+
+    // username별 회원 수 - UsernameIndex가 바뀐 username만 다시 셀 때
+    @Query("select m.username, count(m) from Member m where m.username in :usernames group by m.username")
+    List<Object[]> countByUsernames(@Param("usernames") Collection<String> usernames);
+
     // 컬렉션 파라미터 바인딩
+    // 쿼리 결과 캐시 - 캐시에는 id만 저장하고 엔티티는 2차 캐시(member 리전)에서 채운다.
+    // member 리전에서 빠진 회원은 @BatchSize(Member) 단위 in 쿼리로 다시 읽는다. (id마다 select 하지 않는다)
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "member-query")
+    })
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names")List<String> names);
 
@@ -56,11 +96,40 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 //    @Query(value = "select m from Member m left join m.team t",
 //            countQuery = "select count(m) from Member m")
 //    Page<Member> findByAge(int age, Pageable pageable);
+    /**
+     * 키셋(seek) 페이징
+     * offset 대신 마지막으로 읽은 키 다음부터 읽는다. 깊은 페이지도 첫 페이지와 비용이 같다.
+     * Pageable은 limit 용도로만 사용 (PageRequest.of(0, size + 1))
+     * */
+    // (username, id) 기준 - 첫 페이지
+    // username이 null인 회원은 키셋에서 뺀다. 커서에 null을 담을 수 없고(""로 인코딩), 다음 페이지 조건(username >= :username)도 null을 거른다.
+    @Query("select m from Member m where m.username is not null order by m.username asc, m.id asc")
+    List<Member> findKeysetFirst(Pageable pageable);
+
+    // (username, id) 기준 - 다음 페이지
+    // username >= :username 이 있어야 (username, member_id) 인덱스에서 그 위치부터 읽는다. (or만 있으면 전체 스캔 + 정렬)
+    @Query("select m from Member m" +
+            " where m.username >= :username and (m.username > :username or m.id > :id)" +
+            " order by m.username asc, m.id asc")
+    List<Member> findKeysetAfter(@Param("username") String username, @Param("id") Long id, Pageable pageable);
+
+    // (age, id) 기준 - findByAge의 키셋 버전, 첫 페이지
+    @Query("select m from Member m where m.age = :age order by m.id asc")
+    List<Member> findKeysetByAgeFirst(@Param("age") int age, Pageable pageable);
+
+    // (age, id) 기준 - 다음 페이지
+    @Query("select m from Member m where m.age = :age and m.id > :id order by m.id asc")
+    List<Member> findKeysetByAgeAfter(@Param("age") int age, @Param("id") Long id, Pageable pageable);
+
     /**
      * 벌크성 수정 쿼리 - 스프링 데이터 JPA
      * */
+    @Transactional
     @Modifying(clearAutomatically = true) // 이게 있어야 executeUpdate() 호출, 자동으로 em.clear() 호출
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    // 벌크 연산은 @Version을 올려주지 않으므로 직접 올린다. (그래야 동시에 수정 중인 쪽이 충돌을 감지)
+    // auditing도 거치지 않으므로 수정자 / 수정 시각도 직접 (AuditEvaluationContextExtension)
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1," +
+            " m.lastModifiedDate = :#{modifiedDate}, m.lastModifiedBy = :#{modifiedBy} where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     /**
@@ -94,6 +163,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     /**
      * Lock
      * */
+    @Transactional // 락은 primary에서
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
@@ -111,7 +181,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // Projections활용 - 네이티브 쿼리 // ANSI 표준 SQL 문법
     @Query(value = "select m.member_id as id, m.username, t.name as teamName" +
             " from member m left join team t ON m.team_id = t.team_id",
-            countQuery = "select coutn(*) from member",
+            countQuery = "select count(*) from member",
             nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
 }
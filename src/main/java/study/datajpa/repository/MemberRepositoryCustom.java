@@ -1,5 +1,7 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import study.datajpa.entity.Member;
 
 import java.util.List;
@@ -7,4 +9,18 @@ import java.util.List;
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
+
+    /**
+     * count 전략을 고를 수 있는 페이징
+     * NONE이면 SliceImpl, 나머지는 PageImpl을 반환한다. countMode가 null이면 메소드별 기본값.
+     * */
+    Slice<Member> findAll(Pageable pageable, CountMode countMode);
+
+    Slice<Member> findByAge(int age, Pageable pageable, CountMode countMode);
+
+    /**
+     * 생성자 기반 DTO 프로젝션 - findProjectionsByUsername의 프록시 없는 버전
+     * 생성자 파라미터에 해당하는 컬럼만 select 한다. (teamName -> team.name)
+     * */
+    <T> List<T> findDtoByUsername(String username, Class<T> type);
 }
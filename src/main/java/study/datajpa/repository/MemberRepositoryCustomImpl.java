@@ -1,18 +1,126 @@
 package study.datajpa.repository;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
-@RequiredArgsConstructor
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.applySorting;
+
+@Transactional(readOnly = true) // 전부 조회 -> replica
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
+    // JPQL은 상수로 두고 기동 시 미리 파싱한다. (QueryWarmup) 정렬이 붙은 쿼리는 정렬 조합마다 처음 한 번 파싱
+    static final String FIND_ALL = "select m from Member m";
+    static final String COUNT_ALL = "select count(m) from Member m";
+    static final String FIND_BY_AGE = "select m from Member m where m.age = :age";
+    static final String COUNT_BY_AGE = "select count(m) from Member m where m.age = :age";
 
     private final EntityManager em;
+    private final PageCounter pageCounter;
+    private final CountMode findAllCountMode;
+    private final CountMode findByAgeCountMode;
+    private final Map<Class<?>, DtoProjection<?>> projections = new ConcurrentHashMap<>();
+
+    public MemberRepositoryCustomImpl(EntityManager em,
+                                      PageCounter pageCounter,
+                                      @Value("${datajpa.paging.count-mode.find-all:EXACT}") CountMode findAllCountMode,
+                                      @Value("${datajpa.paging.count-mode.find-by-age:EXACT}") CountMode findByAgeCountMode) {
+        this.em = em;
+        this.pageCounter = pageCounter;
+        this.findAllCountMode = findAllCountMode;
+        this.findByAgeCountMode = findByAgeCountMode;
+    }
 
     @Override
     public List<Member> findMemberCustom() {
-        return em.createQuery("select m from Member m")
+        return em.createQuery(FIND_ALL)
+                .getResultList();
+    }
+
+    @Override
+    public Slice<Member> findAll(Pageable pageable, CountMode countMode) {
+        CountMode mode = countMode == null ? findAllCountMode : countMode;
+        TypedQuery<Member> content = em.createQuery(
+                applySorting(FIND_ALL, pageable.getSort(), "m"), Member.class);
+        return page(content, pageable, mode, () -> pageCounter.count(mode, "Member.findAll", "member", false,
+                () -> em.createQuery(COUNT_ALL, Long.class).getSingleResult()));
+    }
+
+    @Override
+    public Slice<Member> findByAge(int age, Pageable pageable, CountMode countMode) {
+        CountMode mode = countMode == null ? findByAgeCountMode : countMode;
+        TypedQuery<Member> content = em.createQuery(
+                        applySorting(FIND_BY_AGE, pageable.getSort(), "m"), Member.class)
+                .setParameter("age", age);
+        return page(content, pageable, mode, () -> pageCounter.count(mode, "Member.findByAge:" + age, "member", true,
+                () -> em.createQuery(COUNT_BY_AGE, Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> findDtoByUsername(String username, Class<T> type) {
+        DtoProjection<T> projection = (DtoProjection<T>) projections.computeIfAbsent(type,
+                t -> DtoProjection.of(t, em.getMetamodel().entity(Member.class), "m"));
+        List<?> rows = em.createQuery(projection.selectFrom() + " where m.username = :username")
+                .setParameter("username", username)
                 .getResultList();
+        return projection.map(rows);
+    }
+
+    private Slice<Member> page(TypedQuery<Member> content, Pageable pageable, CountMode mode, LongSupplier total) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(content.getResultList(), pageable, false);
+        }
+        content.setFirstResult((int) pageable.getOffset());
+        if (mode == CountMode.NONE) {
+            // limit + 1 로 다음 페이지가 있는지만 확인
+            List<Member> rows = content.setMaxResults(pageable.getPageSize() + 1).getResultList();
+            boolean hasNext = rows.size() > pageable.getPageSize();
+            return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+        }
+        if (mode == CountMode.ASYNC) {
+            return asyncPage(content, pageable, total);
+        }
+        List<Member> rows = content.setMaxResults(pageable.getPageSize()).getResultList();
+        // 첫 페이지인데 size보다 적게 나왔거나, 마지막 페이지면 count 쿼리를 생략한다.
+        return PageableExecutionUtils.getPage(rows, pageable, total);
+    }
+
+    // count는 다른 스레드/커넥션에서 먼저 시작하고, 이 스레드에서 content를 읽는다.
+    // content는 limit + 1 로 읽어서 count가 늦으면 Slice로 내려준다.
+    private Slice<Member> asyncPage(TypedQuery<Member> content, Pageable pageable, LongSupplier total) {
+        PageCounter.PendingCount count = pageCounter.countAsync(total);
+        List<Member> rows;
+        try {
+            rows = content.setMaxResults(pageable.getPageSize() + 1).getResultList();
+        } catch (RuntimeException e) {
+            count.cancel();
+            throw e;
+        }
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Member> pageRows = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        if (!hasNext && (pageable.getOffset() == 0 || !pageRows.isEmpty())) {
+            // 마지막 페이지면 total을 바로 알 수 있다.
+            count.cancel();
+            return new PageImpl<>(pageRows, pageable, pageable.getOffset() + pageRows.size());
+        }
+        Long totalCount = count.await();
+        if (totalCount == null) {
+            return new SliceImpl<>(pageRows, pageable, hasNext);
+        }
+        return new PageImpl<>(pageRows, pageable, totalCount);
     }
 }
@@ -0,0 +1,277 @@
+package study.datajpa.repository;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.TableWriteTracker;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 total count 계산
+ * CountMode에 따라 exact / cached / approximate 중 하나로 센다.
+ * ASYNC는 별도 스레드(별도 커넥션, readOnly 트랜잭션)에서 count를 돌리고 content 쿼리와 동시에 실행한다.
+ * */
+@Component
+public class PageCounter {
+
+    private final TableWriteTracker tableWriteTracker;
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final String estimateSql; // null이면 DB 통계를 지원하지 않는 DB
+
+    private final TransactionTemplate countTransaction;
+    private final ThreadPoolExecutor countWorkers;
+    private final Duration asyncCountTimeout;
+
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager em; // count 트랜잭션에 묶인 세션 - 취소할 때 Session.cancelQuery()
+
+    public PageCounter(TableWriteTracker tableWriteTracker,
+                       DataSource dataSource,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${datajpa.paging.count-cache-ttl:30s}") Duration ttl,
+                       @Value("${datajpa.paging.count-cache-size:1000}") int maxEntries,
+                       @Value("${datajpa.paging.async-count.threads:4}") int asyncThreads,
+                       @Value("${datajpa.paging.async-count.queue-size:100}") int asyncQueueSize,
+                       @Value("${datajpa.paging.async-count.timeout:300ms}") Duration asyncCountTimeout) {
+        this.tableWriteTracker = tableWriteTracker;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.estimateSql = estimateSql(dataSource);
+
+        // timeout 안에 못 끝낸 count가 커넥션을 계속 잡고 있지 않도록 트랜잭션 timeout도 건다. (초 단위)
+        this.countTransaction = new TransactionTemplate(transactionManager);
+        this.countTransaction.setReadOnly(true);
+        this.countTransaction.setTimeout((int) Math.max(1, asyncCountTimeout.toSeconds() + 1));
+        // 큐가 차면 기다리지 않고 거절 -> 호출한 쪽은 count 없이 Slice로
+        this.countWorkers = new ThreadPoolExecutor(asyncThreads, asyncThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(asyncQueueSize), new CustomizableThreadFactory("page-count-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.asyncCountTimeout = asyncCountTimeout;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        countWorkers.shutdownNow();
+    }
+
+    /**
+     * @param key        쿼리 + 파라미터 (캐시 키)
+     * @param table      count 대상 테이블 (쓰기 발생 시 캐시 무효화 기준)
+     * @param filtered   where 조건이 있는지. 조건이 있으면 테이블 통계로 추정할 수 없다.
+     * @param exactCount 실제 count 쿼리
+     * */
+    public long count(CountMode mode, String key, String table, boolean filtered, LongSupplier exactCount) {
+        switch (mode) {
+            case APPROXIMATE:
+                if (!filtered) {
+                    Long estimate = estimate(table);
+                    if (estimate != null) {
+                        return estimate;
+                    }
+                }
+                return cached(key, table, exactCount);
+            case CACHED:
+                return cached(key, table, exactCount);
+            default:
+                return exactCount.getAsLong();
+        }
+    }
+
+    /**
+     * count를 별도 스레드에서 시작한다. 결과는 PendingCount.await()로 받는다.
+     * 다른 커넥션에서 실행되므로 호출한 트랜잭션에서 아직 커밋하지 않은 변경은 세지 않는다.
+     * */
+    public PendingCount countAsync(LongSupplier exactCount) {
+        return countAsync(exactCount, asyncCountTimeout);
+    }
+
+    public PendingCount countAsync(LongSupplier exactCount, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CountTask task = new CountTask(exactCount);
+        try {
+            // CompletableFuture.cancel은 실행 중인 작업을 멈추지 않으므로 FutureTask로 제출한다.
+            return new PendingCount(countWorkers.submit(task), task, deadline);
+        } catch (RejectedExecutionException e) {
+            return new PendingCount(null, null, deadline); // 풀이 꽉 찼으면 count 생략
+        }
+    }
+
+    // 비동기 count를 돌리는 워커 스레드 수 (테스트용)
+    int activeCountWorkers() {
+        return countWorkers.getActiveCount();
+    }
+
+    private long cached(String key, String table, LongSupplier exactCount) {
+        if (tableWriteTracker.hasPendingWrite(table)) {
+            return exactCount.getAsLong(); // 이 트랜잭션이 쓴 테이블 - 커밋 전 count는 캐시하지 않는다
+        }
+        long version = tableWriteTracker.version(table);
+        long now = System.nanoTime();
+        CachedCount cached = cache.get(key);
+        if (cached != null && cached.version == version && now - cached.createdAt < ttlNanos) {
+            return cached.count;
+        }
+        long count = exactCount.getAsLong();
+        if (cache.size() >= maxEntries) {
+            cache.clear(); // 단순하게 전부 버린다
+        }
+        cache.put(key, new CachedCount(count, version, now));
+        return count;
+    }
+
+    private Long estimate(String table) {
+        if (estimateSql == null) {
+            return null;
+        }
+        try {
+            Long estimate = jdbcTemplate.queryForObject(estimateSql, Long.class, table);
+            return estimate != null && estimate >= 0 ? estimate : null;
+        } catch (DataAccessException e) {
+            return null; // 통계가 없으면 정확한 count로
+        }
+    }
+
+    private static String estimateSql(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+            if (product.contains("h2")) {
+                return "select row_count_estimate from information_schema.tables" +
+                        " where table_schema = schema() and lower(table_name) = lower(?)";
+            }
+            if (product.contains("postgres")) {
+                return "select reltuples::bigint from pg_class where relname = lower(?)";
+            }
+            if (product.contains("mysql") || product.contains("mariadb")) {
+                return "select table_rows from information_schema.tables" +
+                        " where table_schema = database() and table_name = ?";
+            }
+            return null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    // count 트랜잭션 하나. 실행 중인 세션을 들고 있다가 취소되면 JDBC Statement.cancel()로 쿼리를 멈춘다.
+    private class CountTask implements Callable<Long> {
+        private final LongSupplier exactCount;
+        private volatile Session session;
+        private volatile boolean cancelled;
+
+        CountTask(LongSupplier exactCount) {
+            this.exactCount = exactCount;
+        }
+
+        @Override
+        public Long call() {
+            return countTransaction.execute(status -> {
+                session = em.unwrap(Session.class);
+                try {
+                    if (cancelled) {
+                        throw new CancellationException();
+                    }
+                    return exactCount.getAsLong();
+                } finally {
+                    session = null;
+                }
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            Session running = session;
+            if (running != null) {
+                try {
+                    running.cancelQuery(); // 다른 스레드에서 불러도 되는 유일한 Session 메소드
+                } catch (HibernateException e) {
+                    // 이미 끝났거나 실행 중인 쿼리가 없음 - 트랜잭션 timeout이 마지막 안전장치
+                }
+            }
+        }
+    }
+
+    /**
+     * 실행 중인 비동기 count
+     * timeout은 countAsync를 호출한 시점부터 잰다. (content 쿼리에 쓴 시간도 포함)
+     * timeout이나 cancel()이면 실행 중인 count 쿼리를 취소하고 워커 스레드를 인터럽트한다. (워커와 커넥션을 바로 돌려받는다)
+     * */
+    public static class PendingCount {
+        private final Future<Long> future;
+        private final CountTask task;
+        private final long deadline;
+
+        PendingCount(Future<Long> future, CountTask task, long deadline) {
+            this.future = future;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return total count. timeout, 실패, 거절이면 null
+         * */
+        public Long await() {
+            if (future == null) {
+                return null;
+            }
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException | CancellationException e) {
+                cancel();
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                return null;
+            }
+        }
+
+        public void cancel() {
+            if (future != null) {
+                task.cancel();
+                future.cancel(true); // 아직 큐에 있으면 실행하지 않고, 실행 중이면 인터럽트
+            }
+        }
+    }
+
+    private static class CachedCount {
+        final long count;
+        final long version;
+        final long createdAt;
+
+        CachedCount(long count, long version, long createdAt) {
+            this.count = count;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+}
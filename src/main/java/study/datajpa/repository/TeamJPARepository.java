@@ -10,6 +10,12 @@ import java.util.Optional;
 
 @Repository
 public class TeamJPARepository {
+    // JPQL은 상수로 두고 기동 시 미리 파싱한다. (QueryWarmup)
+    static final String FIND_ALL = "select t from Team t";
+    static final String COUNT = "select count(t) from Team t";
+    static final String FIND_PAGE = "select t from Team t order by t.id";
+    static final String FETCH_MEMBERS = "select distinct t from Team t left join fetch t.members where t in :teams";
+
     @PersistenceContext
     EntityManager em;
 
@@ -24,7 +30,7 @@ public class TeamJPARepository {
     }
 
     public List<Team> findAll(){
-        return em.createQuery("select t from Team t", Team.class)
+        return em.createQuery(FIND_ALL, Team.class)
                 .getResultList();
     }
     public Optional<Team> findById(Long id) {
@@ -32,9 +38,27 @@ public class TeamJPARepository {
         return Optional.ofNullable(team);
     }
     public long count() {
-        return em.createQuery("select count(t) from Team t", Long.class)
+        return em.createQuery(COUNT, Long.class)
                 .getSingleResult();
     }
 
+    /**
+     * 팀 페이징 + 팀별 회원 - 순수 JPA
+     * 1. 팀만 offset/limit 으로 조회
+     * 2. 같은 영속성 컨텍스트에서 페치 조인으로 members를 한 번에 초기화
+     * */
+    public List<Team> findPageWithMembers(int offset, int limit) {
+        List<Team> teams = em.createQuery(FIND_PAGE, Team.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        if (!teams.isEmpty()) {
+            em.createQuery(FETCH_MEMBERS, Team.class)
+                    .setParameter("teams", teams)
+                    .getResultList();
+        }
+        return teams;
+    }
+
 
 }
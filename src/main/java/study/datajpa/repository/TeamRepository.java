@@ -1,7 +1,45 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Team;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    // 팀 이름은 unique 제약이 없어서 첫 번째 것만
+    Optional<Team> findFirstByName(String name);
+
+    // 이름별 팀 id (같은 이름이 여러 개면 findFirstByName처럼 하나만) - 회원 import에서 청크의 팀을 한 번에 찾을 때
+    @Query("select t.name, min(t.id) from Team t where t.name in :names group by t.name")
+    List<Object[]> findIdsByNames(@Param("names") Collection<String> names);
+
+    // 팀 id 목록 - 회원 팀 재배치 배치 작업용 (MemberBatchJobService)
+    @Query("select t.id from Team t order by t.id")
+    List<Long> findAllIds();
+
+    // 이미 조회한 팀들의 members 컬렉션을 한 번에 채운다. (같은 영속성 컨텍스트 안에서)
+    @Query("select distinct t from Team t left join fetch t.members where t in :teams")
+    List<Team> fetchMembers(@Param("teams") List<Team> teams);
+
+    /**
+     * 팀 페이징 + 팀별 회원
+     * 컬렉션 페치 조인은 페이징이 안 되므로 팀만 페이징하고, members는 in 쿼리 한 번으로 가져온다.
+     * 페이지 크기와 상관없이 쿼리 3번 (팀, count, 회원)
+     * */
+    @Transactional(readOnly = true)
+    default Page<Team> findPageWithMembers(Pageable pageable) {
+        Page<Team> page = findAll(pageable);
+        if (page.hasContent()) {
+            fetchMembers(page.getContent());
+        }
+        return page;
+    }
 }
@@ -0,0 +1,137 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.AuditStamp;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.entity.BulkUpdateChunk;
+import study.datajpa.entity.BulkUpdateJob;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 청크 단위 병렬 벌크 수정
+ * 테이블 전체를 update 하나로 처리하면 락을 오래 잡고 undo 로그가 커진다.
+ * 대상 id 범위를 chunk-size 단위로 잘라서 청크마다 짧은 트랜잭션으로, 고정 크기 스레드 풀에서 실행한다.
+ *
+ * 청크가 커밋될 때 BulkUpdateChunk 기록도 같이 커밋되므로
+ * 중간에 실패해도 같은 jobId로 다시 실행하면 남은 청크만 실행한다.
+ * */
+@Slf4j
+@Service
+public class ChunkedBulkUpdater {
+
+    static final String FIND_DONE_CHUNKS = "select c.fromId from BulkUpdateChunk c where c.jobId = :jobId";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final int chunkSize;
+
+    public ChunkedBulkUpdater(PlatformTransactionManager transactionManager,
+                              @Value("${datajpa.bulk-update.chunk-size:1000}") int chunkSize,
+                              @Value("${datajpa.bulk-update.threads:4}") int threads) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.workers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("bulk-update-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * stamp는 요청 스레드에서 만들어서 넘긴다. (AuditStampProvider.current())
+     * 이 메소드는 JobLauncher 스레드에서, 청크는 워커 스레드에서 실행되므로 여기서는 요청의 수정자를 알 수 없다.
+     * */
+    public BulkUpdateResult execute(String jobId, RangeUpdate update, AuditStamp stamp) {
+        long start = System.nanoTime();
+        BulkUpdateJob job = transactionTemplate.execute(status -> findOrPlan(jobId, update));
+        Set<Long> done = transactionTemplate.execute(status -> new HashSet<>(em.createQuery(FIND_DONE_CHUNKS, Long.class)
+                .setParameter("jobId", jobId)
+                .getResultList()));
+
+        int total = job.chunkCount();
+        AtomicInteger finished = new AtomicInteger(done.size());
+        AtomicLong updatedRows = new AtomicLong();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            long fromId = job.chunkStart(i);
+            if (done.contains(fromId)) {
+                continue;
+            }
+            chunks.add(CompletableFuture.runAsync(() -> {
+                updatedRows.addAndGet(updateChunk(job, update, stamp, fromId));
+                int count = finished.incrementAndGet();
+                if (count % Math.max(1, total / 10) == 0 || count == total) {
+                    log.info("bulk update [{}] {}/{} chunks", jobId, count, total);
+                }
+            }, workers));
+        }
+
+        try {
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+            transactionTemplate.executeWithoutResult(status -> em.find(BulkUpdateJob.class, jobId).complete());
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("bulk update [" + jobId + "] " + finished.get() + "/" + total
+                    + " 청크까지 완료. 같은 jobId로 다시 실행하면 이어서 진행합니다.", e.getCause() == null ? e : e.getCause());
+        } finally {
+            // @Modifying(clearAutomatically = true)와 같이 호출한 쪽 영속성 컨텍스트를 비운다.
+            // 2차 캐시는 JPQL 벌크 연산마다 hibernate가 해당 리전을 무효화한다.
+            em.clear();
+            em.getEntityManagerFactory().getCache().evict(update.getEntityType());
+        }
+
+        return new BulkUpdateResult(jobId, total, done.size(), updatedRows.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private BulkUpdateJob findOrPlan(String jobId, RangeUpdate update) {
+        BulkUpdateJob job = em.find(BulkUpdateJob.class, jobId);
+        String parameters = update.getParameters().toString();
+        if (job != null) {
+            if (!job.getUpdateQuery().equals(update.getUpdateQuery()) || !job.getParameters().equals(parameters)) {
+                throw new IllegalStateException("bulk update [" + jobId + "] 는 다른 쿼리/파라미터로 실행된 작업입니다.");
+            }
+            return job;
+        }
+        Query range = em.createQuery(update.getRangeQuery());
+        update.getParameters().forEach(range::setParameter);
+        Object[] minMax = (Object[]) range.getSingleResult();
+        job = new BulkUpdateJob(jobId, update.getUpdateQuery(), parameters,
+                (Long) minMax[0], (Long) minMax[1], chunkSize);
+        em.persist(job);
+        return job;
+    }
+
+    private int updateChunk(BulkUpdateJob job, RangeUpdate update, AuditStamp stamp, long fromId) {
+        Integer rows = transactionTemplate.execute(status -> {
+            Query query = stamp.bindTo(em.createQuery(update.getUpdateQuery()))
+                    .setParameter("fromId", fromId)
+                    .setParameter("toId", fromId + job.getChunkSize());
+            update.getParameters().forEach(query::setParameter);
+            int updated = query.executeUpdate();
+            em.persist(new BulkUpdateChunk(job.getId(), fromId, updated)); // 같은 트랜잭션
+            return updated;
+        });
+        return rows == null ? 0 : rows;
+    }
+}
@@ -0,0 +1,43 @@
+package study.datajpa.service;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 엔티티를 한 건씩 처리하는 배치 작업 정의 (ChunkedJobRunner)
+ * - name          : 작업 종류 (메트릭 태그). 실행마다 다른 jobId로 구분한다.
+ * - filter        : 대상 조건 JPQL, 별칭은 e (예: "e.age >= :age"). 없으면 null
+ * - processor     : 영속 상태 엔티티를 받아서 수정한다. 청크 트랜잭션이 커밋될 때 변경 감지로 반영
+ * - commitInterval: 트랜잭션 하나에서 처리할 row 수 (0이면 datajpa.batch.commit-interval)
+ * - partitions    : id 범위를 나눠서 동시에 처리할 파티션 수 (0이면 datajpa.batch.partitions)
+ * id는 Long 이어야 한다. (키셋 기준)
+ * */
+@Getter
+public class ChunkedJob<T> {
+
+    private final String name;
+    private final Class<T> entityType;
+    private final String filter;
+    private final Map<String, Object> parameters;
+    private final Consumer<T> processor;
+    private final int commitInterval;
+    private final int partitions;
+
+    public ChunkedJob(String name, Class<T> entityType, String filter, Map<String, Object> parameters,
+                      Consumer<T> processor, int commitInterval, int partitions) {
+        this.name = name;
+        this.entityType = entityType;
+        this.filter = filter;
+        this.parameters = new TreeMap<>(parameters);
+        this.processor = processor;
+        this.commitInterval = commitInterval;
+        this.partitions = partitions;
+    }
+
+    public ChunkedJob(String name, Class<T> entityType, Consumer<T> processor) {
+        this(name, entityType, null, Map.of(), processor, 0, 0);
+    }
+}
@@ -0,0 +1,217 @@
+package study.datajpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.BatchJobResult;
+import study.datajpa.entity.BatchJob;
+import study.datajpa.entity.BatchJobPartition;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 청크 단위 배치 작업 실행기
+ *
+ * 처음 실행할 때 대상 id의 min ~ max를 파티션 수만큼 나눠서 BatchJobPartition으로 저장한다.
+ * 파티션마다 스레드 하나가 키셋(id > lastKey order by id limit commitInterval)으로 청크를 읽고,
+ * 읽은 row는 스크롤하면서 바로 processor에 넘긴다. 청크 하나 = 트랜잭션 하나이고,
+ * 파티션의 lastKey도 같은 트랜잭션에서 갱신하므로 실패하면 같은 jobId로 다시 실행해서 이어서 처리한다.
+ *
+ * 처리 중에 바뀌면 안 되는 작업 파라미터(예: 배정할 팀 id 목록)는 fixedParameters로 처음 실행할 때 저장해 두고 재실행에서 그대로 쓴다.
+ *
+ * 변경 감지 / @Version / auditing / 2차 캐시가 그대로 동작하도록 일반 세션을 쓴다. (트랜잭션이 끝나면 영속성 컨텍스트도 비워진다)
+ * 메트릭: datajpa.batch.chunk{job} (청크 처리 시간), datajpa.batch.rows{job}
+ * */
+@Slf4j
+@Service
+public class ChunkedJobRunner {
+
+    static final String FIND_PARTITIONS = "select p from BatchJobPartition p where p.jobId = :jobId order by p.partitionNo";
+    // 대상 엔티티의 범위 / 청크 쿼리는 작업마다 만들어서 QueryWarmup 대상이 아니다. (작업의 첫 청크에서 파싱)
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService workers;
+    private final int defaultCommitInterval;
+    private final int defaultPartitions;
+
+    public ChunkedJobRunner(PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${datajpa.batch.commit-interval:500}") int defaultCommitInterval,
+                            @Value("${datajpa.batch.partitions:4}") int defaultPartitions,
+                            @Value("${datajpa.batch.threads:4}") int threads) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.defaultCommitInterval = defaultCommitInterval;
+        this.defaultPartitions = defaultPartitions;
+        this.workers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("batch-job-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    public <T> BatchJobResult execute(String jobId, ChunkedJob<T> job) {
+        long start = System.nanoTime();
+        int commitInterval = job.getCommitInterval() > 0 ? job.getCommitInterval() : defaultCommitInterval;
+        String chunkQuery = chunkQuery(job);
+        Timer chunkTimer = Timer.builder("datajpa.batch.chunk").tag("job", job.getName()).register(meterRegistry);
+        Counter rowCounter = Counter.builder("datajpa.batch.rows").tag("job", job.getName()).register(meterRegistry);
+
+        List<BatchJobPartition> partitions = transactionTemplate.execute(status -> findOrPlan(jobId, job));
+        AtomicInteger chunks = new AtomicInteger();
+        AtomicLong processedRows = new AtomicLong();
+        int skipped = 0;
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (BatchJobPartition partition : partitions) {
+            if (partition.isCompleted()) {
+                skipped++;
+                continue;
+            }
+            running.add(CompletableFuture.runAsync(() -> {
+                Long partitionId = partition.getId();
+                boolean completed = false;
+                while (!completed) {
+                    long chunkStart = System.nanoTime();
+                    int rows = transactionTemplate.execute(status ->
+                            processChunk(job, chunkQuery, partitionId, commitInterval));
+                    chunkTimer.record(System.nanoTime() - chunkStart, TimeUnit.NANOSECONDS);
+                    rowCounter.increment(rows);
+                    chunks.incrementAndGet();
+                    processedRows.addAndGet(rows);
+                    completed = rows < commitInterval;
+                }
+                log.info("batch job [{}] partition {} 완료", jobId, partition.getPartitionNo());
+            }, workers));
+        }
+
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("batch job [" + jobId + "] " + chunks.get() + "개 청크 커밋 후 실패."
+                    + " 같은 jobId로 다시 실행하면 마지막으로 커밋된 키 다음부터 이어서 진행합니다.", e.getCause() == null ? e : e.getCause());
+        }
+        return new BatchJobResult(jobId, partitions.size(), skipped, chunks.get(), processedRows.get(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 작업을 처음 실행할 때 initial로 만든 값을 BatchJob에 저장하고, 같은 jobId로 다시 실행하면 저장된 값을 돌려준다.
+     * processor가 참조하는 값을 이걸로 고정해야 재실행한 청크도 처음 청크와 같은 기준으로 처리된다.
+     * initial이 예외를 던지면 저장하지 않는다.
+     * */
+    public String fixedParameters(String jobId, String jobName, Supplier<String> initial) {
+        return transactionTemplate.execute(status -> {
+            BatchJob saved = em.find(BatchJob.class, jobId);
+            if (saved != null) {
+                if (!saved.getJobName().equals(jobName)) {
+                    throw new IllegalStateException("batch job [" + jobId + "] 는 다른 작업(" + saved.getJobName() + ")입니다.");
+                }
+                return saved.getParameters();
+            }
+            String parameters = initial.get();
+            em.persist(new BatchJob(jobId, jobName, parameters));
+            return parameters;
+        });
+    }
+
+    // 청크 하나 - 같은 트랜잭션에서 처리 + lastKey 갱신
+    @SuppressWarnings("unchecked")
+    private <T> int processChunk(ChunkedJob<T> job, String chunkQuery, Long partitionId, int commitInterval) {
+        BatchJobPartition partition = em.find(BatchJobPartition.class, partitionId);
+        TypedQuery<T> query = em.createQuery(chunkQuery, job.getEntityType())
+                .setParameter("lastKey", partition.getLastKey())
+                .setParameter("toKey", partition.getToKey())
+                .setMaxResults(commitInterval);
+        job.getParameters().forEach(query::setParameter);
+
+        int rows = 0;
+        long lastKey = partition.getLastKey();
+        try (ScrollableResults results = query.unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(Math.min(commitInterval, 1000))
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                T entity = (T) results.get(0);
+                job.getProcessor().accept(entity);
+                lastKey = (Long) em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+                rows++;
+            }
+        }
+        boolean completed = rows < commitInterval;
+        partition.commitChunk(completed ? partition.getToKey() : lastKey, rows, completed);
+        return rows;
+    }
+
+    private <T> List<BatchJobPartition> findOrPlan(String jobId, ChunkedJob<T> job) {
+        List<BatchJobPartition> partitions = em.createQuery(FIND_PARTITIONS, BatchJobPartition.class)
+                .setParameter("jobId", jobId)
+                .getResultList();
+        if (!partitions.isEmpty()) {
+            if (!partitions.get(0).getJobName().equals(job.getName())) {
+                throw new IllegalStateException("batch job [" + jobId + "] 는 다른 작업(" + partitions.get(0).getJobName() + ")입니다.");
+            }
+            return partitions;
+        }
+
+        TypedQuery<Object[]> range = em.createQuery("select min(e." + idName(job) + "), max(e." + idName(job) + ")"
+                + from(job), Object[].class);
+        job.getParameters().forEach(range::setParameter);
+        Object[] minMax = range.getSingleResult();
+        if (minMax[0] == null) {
+            return partitions; // 대상 없음
+        }
+        long min = ((Number) minMax[0]).longValue();
+        long max = ((Number) minMax[1]).longValue();
+        int count = (int) Math.max(1, Math.min(job.getPartitions() > 0 ? job.getPartitions() : defaultPartitions, max - min + 1));
+        long width = (max - min + count) / count; // 올림
+        for (int i = 0; i < count; i++) {
+            long from = min + i * width;
+            long to = i == count - 1 ? max : from + width - 1;
+            BatchJobPartition partition = new BatchJobPartition(jobId, job.getName(), i, from, to);
+            em.persist(partition);
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    private <T> String chunkQuery(ChunkedJob<T> job) {
+        String id = "e." + idName(job);
+        return "select e" + from(job)
+                + (job.getFilter() == null ? " where " : " and ")
+                + id + " > :lastKey and " + id + " <= :toKey order by " + id;
+    }
+
+    private <T> String from(ChunkedJob<T> job) {
+        EntityType<T> entity = em.getMetamodel().entity(job.getEntityType());
+        return " from " + entity.getName() + " e" + (job.getFilter() == null ? "" : " where (" + job.getFilter() + ")");
+    }
+
+    private <T> String idName(ChunkedJob<T> job) {
+        return em.getMetamodel().entity(job.getEntityType()).getId(Long.class).getName();
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * 엔티티 수정 - 낙관적 락 + 재시도 / 비관적 락
+ * 낙관적: 락 없이 읽고 커밋 시 @Version으로 충돌 확인, 충돌하면 backoff 후 처음부터 다시 (변경 로직은 멱등이 아니어도 됨)
+ * 비관적: select ... for update 로 row 락을 잡고 수정 (findLockByUsername 방식)
+ * */
+@Service
+public class EntityUpdateService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public EntityUpdateService(PlatformTransactionManager transactionManager,
+                               @Value("${datajpa.optimistic.max-attempts:5}") int maxAttempts,
+                               @Value("${datajpa.optimistic.initial-backoff-ms:5}") long initialBackoffMillis,
+                               @Value("${datajpa.optimistic.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T updateOptimistic(Class<T> type, Object id, Consumer<T> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    T entity = find(type, id, LockModeType.NONE);
+                    change.accept(entity);
+                    return entity; // 커밋(flush) 시점에 version 비교
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                // 2차 캐시에 남은 예전 version을 다시 읽지 않도록
+                em.getEntityManagerFactory().getCache().evict(type, id);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public <T> T updatePessimistic(Class<T> type, Object id, Consumer<T> change) {
+        return transactionTemplate.execute(status -> {
+            T entity = find(type, id, LockModeType.PESSIMISTIC_WRITE);
+            change.accept(entity);
+            return entity;
+        });
+    }
+
+    private <T> T find(Class<T> type, Object id, LockModeType lockMode) {
+        T entity = em.find(type, id, lockMode);
+        if (entity == null) {
+            throw new EntityNotFoundException(type.getSimpleName() + " id=" + id);
+        }
+        return entity;
+    }
+
+    // 지수 backoff + full jitter: 0 ~ min(max, initial * 2^(attempt-1))
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("낙관적 락 재시도 중 인터럽트", e);
+        }
+    }
+}
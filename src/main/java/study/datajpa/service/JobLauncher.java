@@ -0,0 +1,102 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import study.datajpa.dto.JobStatus;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * 오래 걸리는 작업(청크 벌크 수정, 청크 배치)을 요청 스레드 밖에서 실행한다.
+ * 요청은 jobId만 받고 바로 돌아가고, 상태는 status(jobId)로 조회한다. (GET /members/jobs/{jobId})
+ *
+ * 상태는 메모리에만 있다. (최근 max-history 개) 진행 지점은 작업이 DB에 남기므로
+ * 실패하거나 재시작으로 상태를 잃어도 같은 jobId로 다시 실행하면 이어서 진행한다.
+ * 같은 jobId가 대기 / 실행 중이면 새로 실행하지 않고 그 상태를 돌려준다. (같은 청크를 두 스레드가 처리하지 않도록)
+ * */
+@Slf4j
+@Service
+public class JobLauncher {
+
+    private final ExecutorService launcher;
+    private final Map<String, Execution> executions; // this로 동기화
+
+    public JobLauncher(@Value("${datajpa.jobs.threads:2}") int threads,
+                       @Value("${datajpa.jobs.max-history:100}") int maxHistory) {
+        this.launcher = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("job-launcher-"));
+        this.executions = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Execution> eldest) {
+                return size() > maxHistory && eldest.getValue().isFinished();
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        launcher.shutdown();
+    }
+
+    public JobStatus launch(String jobId, String jobName, Supplier<?> job) {
+        Execution execution;
+        synchronized (this) {
+            Execution previous = executions.get(jobId);
+            if (previous != null && !previous.isFinished()) {
+                return previous.status();
+            }
+            execution = new Execution(jobId, jobName);
+            executions.remove(jobId); // 다시 실행하면 순서상 가장 최근으로
+            executions.put(jobId, execution);
+        }
+        launcher.execute(() -> execution.run(job));
+        return execution.status();
+    }
+
+    public synchronized Optional<JobStatus> status(String jobId) {
+        return Optional.ofNullable(executions.get(jobId)).map(Execution::status);
+    }
+
+    // 상태는 JobStatus 하나로 바꿔서 조회하는 쪽이 중간 상태를 보지 않게 한다.
+    private static class Execution {
+        private volatile JobStatus status;
+
+        Execution(String jobId, String jobName) {
+            this.status = new JobStatus(jobId, jobName, "QUEUED", LocalDateTime.now(), null, null, null);
+        }
+
+        void run(Supplier<?> job) {
+            JobStatus queued = status;
+            status = new JobStatus(queued.getJobId(), queued.getJobName(), "RUNNING", queued.getSubmittedDate(), null, null, null);
+            try {
+                Object result = job.get();
+                status = new JobStatus(queued.getJobId(), queued.getJobName(), "COMPLETED", queued.getSubmittedDate(),
+                        LocalDateTime.now(), result, null);
+            } catch (Throwable e) {
+                // Error(OOM, StackOverflowError, AssertionError)도 FAILED로 끝내야 같은 jobId로 다시 실행할 수 있다.
+                log.warn("job [{}] {} 실패", queued.getJobId(), queued.getJobName(), e);
+                status = new JobStatus(queued.getJobId(), queued.getJobName(), "FAILED", queued.getSubmittedDate(),
+                        LocalDateTime.now(), null, e.getMessage() == null ? e.toString() : e.getMessage());
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+            }
+        }
+
+        boolean isFinished() {
+            return status.getFinishedDate() != null;
+        }
+
+        JobStatus status() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import study.datajpa.dto.BatchJobResult;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 엔티티 단위 배치 작업 (ChunkedJobRunner)
+ * 벌크 update로 표현하기 어려운 row별 로직을 청크 트랜잭션 안에서 엔티티로 처리한다.
+ * */
+@Service
+@RequiredArgsConstructor
+public class MemberBatchJobService {
+
+    static final String REBALANCE_TEAMS = "rebalance-teams";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ChunkedJobRunner chunkedJobRunner;
+    private final TeamRepository teamRepository;
+
+    // 회원을 id 기준으로 팀에 고르게 다시 배정한다. 같은 jobId로 다시 호출하면 이어서 실행
+    public BatchJobResult rebalanceTeams(String jobId) {
+        return rebalanceTeams(jobId, member -> {});
+    }
+
+    // before: 회원을 배정하기 전에 호출 (테스트에서 청크 실패를 끼워 넣는다)
+    BatchJobResult rebalanceTeams(String jobId, Consumer<Member> before) {
+        // 팀 목록은 처음 실행할 때 고정한다. 재실행 사이에 팀이 생기거나 없어지면 나머지 연산 기준이 달라져서
+        // 이미 커밋된 청크와 남은 청크가 서로 다른 기준으로 배정되기 때문
+        List<Long> teamIds = parseIds(chunkedJobRunner.fixedParameters(jobId, REBALANCE_TEAMS, () -> {
+            List<Long> ids = teamRepository.findAllIds();
+            if (ids.isEmpty()) {
+                throw new IllegalStateException("팀이 없어서 회원을 배정할 수 없습니다.");
+            }
+            return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        }));
+        return chunkedJobRunner.execute(jobId, new ChunkedJob<>(REBALANCE_TEAMS, Member.class, member -> {
+            before.accept(member);
+            Long teamId = teamIds.get((int) (member.getId() % teamIds.size()));
+            if (member.getTeam() != null && teamId.equals(member.getTeam().getId())) {
+                return; // 이미 배정됨 - update 없음
+            }
+            // 연관관계 주인 쪽만 바꾼다. (changeTeam은 Team.members 컬렉션을 로딩하므로 청크마다 팀 회원 전체를 읽게 된다)
+            member.setTeam(em.getReference(Team.class, teamId));
+        }));
+    }
+
+    private static List<Long> parseIds(String ids) {
+        return Arrays.stream(ids.split(",")).map(Long::valueOf).collect(Collectors.toList());
+    }
+}
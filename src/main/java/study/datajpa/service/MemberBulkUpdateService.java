@@ -0,0 +1,44 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import study.datajpa.config.AuditStamp;
+import study.datajpa.config.AuditStampProvider;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.dto.JobStatus;
+import study.datajpa.entity.Member;
+
+import java.util.Map;
+
+/**
+ * bulkAgePlus의 청크 버전
+ * */
+@Service
+@RequiredArgsConstructor
+public class MemberBulkUpdateService {
+
+    static final String AGE_PLUS_RANGE = "select min(m.id), max(m.id) from Member m where m.age >= :age";
+    static final String AGE_PLUS = "update Member m set m.age = m.age + 1, m.version = m.version + 1," +
+            " m.lastModifiedDate = :modifiedDate, m.lastModifiedBy = :modifiedBy" +
+            " where m.age >= :age and m.id >= :fromId and m.id < :toId";
+
+    private final ChunkedBulkUpdater chunkedBulkUpdater;
+    private final AuditStampProvider auditStampProvider;
+    private final JobLauncher jobLauncher;
+
+    // 백그라운드 실행 - 수정자 / 수정 시각은 호출한 스레드(요청)에서 정해서 넘긴다.
+    public JobStatus launchAgePlus(int age, String jobId) {
+        AuditStamp stamp = auditStampProvider.current();
+        return jobLauncher.launch(jobId, "age-plus", () -> agePlus(age, jobId, stamp));
+    }
+
+    // 같은 jobId로 다시 호출하면 실패한 지점부터 이어서 실행
+    public BulkUpdateResult agePlus(int age, String jobId) {
+        return agePlus(age, jobId, auditStampProvider.current());
+    }
+
+    public BulkUpdateResult agePlus(int age, String jobId, AuditStamp stamp) {
+        return chunkedBulkUpdater.execute(jobId,
+                new RangeUpdate(Member.class, AGE_PLUS_RANGE, AGE_PLUS, Map.of("age", age)), stamp);
+    }
+}
@@ -0,0 +1,84 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 전체 export
+ * DB 커서에서 한 줄 읽고 바로 쓰기 때문에 회원 수와 상관없이 힙 사용량이 일정하다.
+ * */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    // 스트림이 열려 있는 동안 커넥션을 잡고 있어야 하므로 메소드 전체가 트랜잭션
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, MemberFileFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            long rows = format == MemberFileFormat.CSV ? writeCsv(stream.iterator(), writer) : writeNdjson(stream.iterator(), writer);
+            writer.flush();
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Iterator<MemberDto> rows, Writer writer) throws IOException {
+        long count = 0;
+        SequenceWriter sequenceWriter = objectMapper.writerFor(MemberDto.class)
+                .withRootValueSeparator("\n")
+                .writeValues(writer);
+        while (rows.hasNext()) {
+            sequenceWriter.write(rows.next());
+            count++;
+        }
+        sequenceWriter.flush();
+        writer.write('\n');
+        return count;
+    }
+
+    private long writeCsv(Iterator<MemberDto> rows, Writer writer) throws IOException {
+        long count = 0;
+        writer.write("id,username,teamName\n");
+        while (rows.hasNext()) {
+            MemberDto dto = rows.next();
+            writer.write(String.valueOf(dto.getId()));
+            writer.write(',');
+            writer.write(csv(dto.getUsername()));
+            writer.write(',');
+            writer.write(csv(dto.getTeamName()));
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
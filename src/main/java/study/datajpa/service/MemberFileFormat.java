@@ -0,0 +1,44 @@
+package study.datajpa.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 회원 파일 형식 - import(MemberImportService)와 export(MemberExportService)가 같이 쓴다.
+ * */
+public enum MemberFileFormat {
+    NDJSON("application/x-ndjson"), // {"username":"m1","age":10,"teamName":"teamA"} 한 줄에 하나
+    CSV("text/csv");                // username,age,teamName (헤더 생략 가능)
+
+    private final String contentType;
+
+    MemberFileFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static MemberFileFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")) {
+            return CSV;
+        }
+        return NDJSON;
+    }
+
+    public static MemberFileFormat fromFileName(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+    }
+
+    // ?format=csv 처럼 이름으로 (대소문자 무시). 지원하지 않는 형식이면 IllegalArgumentException
+    public static MemberFileFormat fromName(String name) {
+        for (MemberFileFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("지원하지 않는 형식입니다: " + name + " (지원: "
+                + Arrays.toString(values()).toLowerCase(Locale.ROOT) + ")");
+    }
+}
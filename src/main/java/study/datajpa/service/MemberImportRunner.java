@@ -0,0 +1,27 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+
+// 로컬 파일 import: --datajpa.import.file=/path/to/members.ndjson 로 실행하면 기동 시 한 번 적재
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty("datajpa.import.file")
+public class MemberImportRunner implements ApplicationRunner {
+
+    private final MemberImportService memberImportService;
+
+    @Value("${datajpa.import.file}")
+    private String file;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        memberImportService.importFile(Paths.get(file));
+    }
+}
@@ -0,0 +1,213 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.ImportResult;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 회원 대량 등록
+ * 입력을 한 줄씩 읽어서 chunk-size 단위로 트랜잭션을 나눠 저장한다.
+ * 청크마다 flush + clear 하기 때문에 입력 크기와 상관없이 메모리는 청크 하나 분량만 쓴다.
+ * 청크의 팀은 insert 전에 이름으로 한 번에 조회한다. (회원을 persist 하는 중간에 조회하면 auto flush로 JDBC 배치가 끊긴다)
+ * */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int teamCacheSize;
+
+    public MemberImportService(TeamRepository teamRepository,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${datajpa.import.chunk-size:1000}") int chunkSize,
+                               @Value("${datajpa.import.team-cache-size:10000}") int teamCacheSize) {
+        this.teamRepository = teamRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.teamCacheSize = teamCacheSize;
+    }
+
+    public ImportResult importFile(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importMembers(reader, MemberFileFormat.fromFileName(path.getFileName().toString()));
+        }
+    }
+
+    public ImportResult importMembers(Reader reader, MemberFileFormat format) throws IOException {
+        long start = System.nanoTime();
+        TeamCache teams = new TeamCache(teamCacheSize);
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        List<MemberRow> chunk = new ArrayList<>(chunkSize);
+        long rows = 0;
+        long lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || (format == MemberFileFormat.CSV && lineNo == 1 && line.startsWith("username"))) {
+                continue; // 빈 줄, CSV 헤더는 건너뛴다
+            }
+            chunk.add(parse(line, format, lineNo));
+            if (chunk.size() == chunkSize) {
+                rows += writeChunk(chunk, teams);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            rows += writeChunk(chunk, teams);
+        }
+
+        ImportResult result = new ImportResult(rows, teams.created, (System.nanoTime() - start) / 1_000_000);
+        log.info("member import finished: {}", result);
+        return result;
+    }
+
+    // 청크 하나 = 트랜잭션 하나. 중간에 실패하면 이전 청크까지는 커밋된 상태로 남는다.
+    // 이 청크에서 찾거나 만든 팀은 커밋된 뒤에 캐시에 넣는다. (롤백된 팀 id가 캐시에 남지 않도록)
+    private int writeChunk(List<MemberRow> chunk, TeamCache teams) {
+        Map<String, Long> chunkTeams = new HashMap<>();
+        Set<String> createdTeams = new HashSet<>();
+        Integer written = transactionTemplate.execute(status -> {
+            resolveTeams(chunk, teams, chunkTeams, createdTeams);
+            for (MemberRow row : chunk) {
+                Member member = new Member(row.username, row.age);
+                if (row.teamName != null) {
+                    // changeTeam()은 team.members 컬렉션을 초기화하므로 FK만 세팅한다.
+                    member.setTeam(em.getReference(Team.class, chunkTeams.get(row.teamName)));
+                }
+                em.persist(member);
+            }
+            em.flush(); // JDBC 배치로 insert (새 팀 -> 회원 순서)
+            em.clear(); // 영속성 컨텍스트 비우기
+            return chunk.size();
+        });
+        teams.putAll(chunkTeams);
+        teams.created += createdTeams.size();
+        return written == null ? 0 : written;
+    }
+
+    // 청크의 팀 이름 -> id. 캐시에 없는 이름은 한 번에 조회하고, DB에도 없으면 만든다.
+    private void resolveTeams(List<MemberRow> chunk, TeamCache teams, Map<String, Long> chunkTeams, Set<String> createdTeams) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (MemberRow row : chunk) {
+            if (row.teamName != null && !chunkTeams.containsKey(row.teamName)) {
+                Long id = teams.get(row.teamName);
+                if (id != null) {
+                    chunkTeams.put(row.teamName, id);
+                } else {
+                    missing.add(row.teamName);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Object[] row : teamRepository.findIdsByNames(missing)) {
+            chunkTeams.put((String) row[0], (Long) row[1]);
+        }
+        for (String name : missing) {
+            if (!chunkTeams.containsKey(name)) {
+                Team team = new Team(name);
+                em.persist(team); // 시퀀스라 persist 시점에 id가 정해진다
+                chunkTeams.put(name, team.getId());
+                createdTeams.add(name);
+            }
+        }
+    }
+
+    private MemberRow parse(String line, MemberFileFormat format, long lineNo) {
+        try {
+            if (format == MemberFileFormat.CSV) {
+                String[] cols = line.split(",", -1);
+                String teamName = cols.length > 2 && !cols[2].isBlank() ? cols[2].trim() : null;
+                int age = cols.length > 1 && !cols[1].isBlank() ? Integer.parseInt(cols[1].trim()) : 0;
+                return new MemberRow(required(cols[0].trim()), age, teamName);
+            }
+            JsonNode node = objectMapper.readTree(line);
+            return new MemberRow(
+                    required(node.path("username").asText(null)),
+                    node.path("age").asInt(0),
+                    node.hasNonNull("teamName") ? node.get("teamName").asText() : null);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("import " + lineNo + "번째 줄을 읽을 수 없습니다: " + line, e);
+        }
+    }
+
+    private static String required(String username) {
+        if (username == null || username.isEmpty()) {
+            throw new IllegalArgumentException("username은 필수입니다.");
+        }
+        return username;
+    }
+
+    private static class MemberRow {
+        final String username;
+        final int age;
+        final String teamName;
+
+        MemberRow(String username, int age, String teamName) {
+            this.username = username;
+            this.age = age;
+            this.teamName = teamName;
+        }
+    }
+
+    /**
+     * 팀 이름 -> id LRU 캐시 (커밋된 팀만)
+     * 엔티티가 아니라 id만 들고 있다가 getReference로 프록시를 만든다. (clear 이후에도 안전)
+     * */
+    private static class TeamCache {
+        private final Map<String, Long> ids;
+        private long created;
+
+        TeamCache(int maxSize) {
+            this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        Long get(String name) {
+            return ids.get(name);
+        }
+
+        void putAll(Map<String, Long> teams) {
+            ids.putAll(teams);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.applySorting;
+
+/**
+ * 회원 목록 compact JSON
+ * /members 는 Page<Member> -> Page<MemberDto> -> JSON 순서로 row마다 객체 그래프를 세 번 만든다.
+ * 여기서는 스칼라 조회 결과를 스크롤하면서 JsonGenerator로 바로 쓴다. (엔티티, DTO, 중간 List 없음)
+ *
+ * {"content":[{"id":1,"username":"member1","teamName":"teamA"},...],"page":0,"size":20,"numberOfElements":20,"hasNext":true}
+ * total count는 세지 않는다. 다음 페이지 여부는 size + 1 번째 row로 판단
+ * */
+@Service
+@RequiredArgsConstructor
+public class MemberListingService {
+
+    static final String FIND_MEMBER_ROWS = "select m.id, m.username, t.name from Member m left join m.team t";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public int writePage(OutputStream out, Pageable pageable) throws IOException {
+        int size = pageable.getPageSize();
+        org.hibernate.query.Query<?> query = em.createQuery(applySorting(FIND_MEMBER_ROWS, pageable.getSort(), "m"))
+                .unwrap(org.hibernate.query.Query.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(size + 1)
+                .setFetchSize(size + 1)
+                .setReadOnly(true);
+
+        int written = 0;
+        boolean hasNext = false;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+             ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("content");
+            while (rows.next()) {
+                if (written == size) {
+                    hasNext = true;
+                    break;
+                }
+                json.writeStartObject();
+                json.writeNumberField("id", ((Number) rows.get(0)).longValue());
+                json.writeStringField("username", (String) rows.get(1));
+                json.writeStringField("teamName", (String) rows.get(2));
+                json.writeEndObject();
+                written++;
+            }
+            json.writeEndArray();
+            json.writeNumberField("page", pageable.getPageNumber());
+            json.writeNumberField("size", size);
+            json.writeNumberField("numberOfElements", written);
+            json.writeBooleanField("hasNext", hasNext);
+            json.writeEndObject();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,70 @@
+package study.datajpa.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 인기 회원 조회 합치기
+ * 같은 id / username 조회가 동시에 여러 개 오면 DB에는 한 번만 보낸다.
+ * 합쳐진 호출은 leader의 결과를 같이 받는데 MemberDto는 setter가 있으므로, 호출한 쪽마다 복사본을 돌려준다.
+ * 메트릭: datajpa.singleflight.calls{name, result=leader|coalesced}
+ * */
+@Service
+public class MemberLookupService {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SingleFlight<Long, Optional<MemberDto>> byId = new SingleFlight<>();
+    private final SingleFlight<String, List<MemberDto>> byUsername = new SingleFlight<>();
+
+    public MemberLookupService(MemberRepository memberRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        register(meterRegistry, "member.findById", byId);
+        register(meterRegistry, "member.findByUsername", byUsername);
+    }
+
+    public Optional<MemberDto> findById(Long id) {
+        return byId.execute(id, () -> readOnlyTransaction.execute(status ->
+                memberRepository.findById(id).map(MemberDto::new)))
+                .map(MemberLookupService::copy);
+    }
+
+    public List<MemberDto> findByUsername(String username) {
+        return byUsername.execute(username, () -> readOnlyTransaction.execute(status ->
+                memberRepository.findByUsername(username).stream()
+                        .map(MemberDto::new)
+                        .collect(Collectors.toUnmodifiableList())))
+                .stream()
+                .map(MemberLookupService::copy)
+                .collect(Collectors.toList());
+    }
+
+    // 공유된 결과는 읽기만 하고, 호출한 쪽에는 새 객체로
+    private static MemberDto copy(MemberDto dto) {
+        return new MemberDto(dto.getId(), dto.getUsername(), dto.getTeamName());
+    }
+
+    private static void register(MeterRegistry registry, String name, SingleFlight<?, ?> singleFlight) {
+        FunctionCounter.builder("datajpa.singleflight.calls", singleFlight, SingleFlight::getLeaderCount)
+                .tag("name", name)
+                .tag("result", "leader")
+                .register(registry);
+        FunctionCounter.builder("datajpa.singleflight.calls", singleFlight, SingleFlight::getCoalescedCount)
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .register(registry);
+    }
+}
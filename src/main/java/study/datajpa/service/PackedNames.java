@@ -0,0 +1,142 @@
+package study.datajpa.service;
+
+import java.util.Arrays;
+
+/**
+ * 정렬된 문자열 집합을 char[] 하나에 이어 붙여 저장한다. (중복 제거, 문자열마다 개수)
+ * String 객체를 만들지 않으므로 List<String> 대비 문자열당 수십 바이트의 객체 헤더가 없다.
+ * 만든 뒤에는 바뀌지 않는다.
+ * */
+final class PackedNames {
+
+    static final PackedNames EMPTY = new Builder().build();
+
+    private final char[] chars;
+    private final int[] offsets; // i번째 문자열 = chars[offsets[i], offsets[i + 1])
+    private final int[] counts;  // 같은 username을 가진 회원 수
+    private final int size;
+
+    private PackedNames(char[] chars, int[] offsets, int[] counts, int size) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.counts = counts;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String name(int i) {
+        return new String(chars, offsets[i], offsets[i + 1] - offsets[i]);
+    }
+
+    int count(int i) {
+        return counts[i];
+    }
+
+    // name의 개수 (없으면 0)
+    int count(String name) {
+        int i = lowerBound(name);
+        return i < size && compare(i, name) == 0 ? counts[i] : 0;
+    }
+
+    long totalCount() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    // key 이상인 첫 위치
+    int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    boolean startsWith(int i, String prefix) {
+        int start = offsets[i];
+        if (offsets[i + 1] - start < prefix.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (chars[start + k] != prefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // String.compareTo와 같은 순서
+    private int compare(int i, String key) {
+        int start = offsets[i];
+        int length = offsets[i + 1] - start;
+        int limit = Math.min(length, key.length());
+        for (int k = 0; k < limit; k++) {
+            char c = chars[start + k];
+            char d = key.charAt(k);
+            if (c != d) {
+                return c - d;
+            }
+        }
+        return length - key.length();
+    }
+
+    // 배열 헤더 16바이트 기준 추정치
+    long footprintBytes() {
+        return 16 + 2L * chars.length + 16 + 4L * offsets.length + 16 + 4L * counts.length;
+    }
+
+    /**
+     * 정렬된 순서로 add 해야 한다. 같은 문자열이 연속으로 오면 개수만 더한다.
+     * */
+    static final class Builder {
+        private char[] chars = new char[1024];
+        private int[] offsets = new int[65];
+        private int[] counts = new int[64];
+        private int size;
+        private int length;
+        private String last;
+
+        Builder add(String name, int count) {
+            if (count <= 0) {
+                return this;
+            }
+            if (name.equals(last)) {
+                counts[size - 1] += count;
+                return this;
+            }
+            if (last != null && name.compareTo(last) < 0) {
+                throw new IllegalArgumentException("정렬되지 않은 입력: " + last + " > " + name);
+            }
+            if (length + name.length() > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + name.length()));
+            }
+            if (size == counts.length) {
+                counts = Arrays.copyOf(counts, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2 + 1);
+            }
+            name.getChars(0, name.length(), chars, length);
+            length += name.length();
+            counts[size] = count;
+            offsets[++size] = length;
+            last = name;
+            return this;
+        }
+
+        PackedNames build() {
+            return new PackedNames(Arrays.copyOf(chars, length), Arrays.copyOf(offsets, size + 1),
+                    Arrays.copyOf(counts, size), size);
+        }
+    }
+}
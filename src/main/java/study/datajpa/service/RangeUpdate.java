@@ -0,0 +1,28 @@
+package study.datajpa.service;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * id 범위로 나눠 실행할 벌크 update
+ * - rangeQuery : 대상 id의 min, max (select min(m.id), max(m.id) ...)
+ * - updateQuery: :fromId 이상 :toId 미만 조건이 들어간 update JPQL
+ *                :modifiedBy, :modifiedDate 가 있으면 ChunkedBulkUpdater가 채운다. (AuditStamp)
+ * */
+@Getter
+public class RangeUpdate {
+
+    private final Class<?> entityType; // 실행 후 영속성 컨텍스트 / 2차 캐시 정리 대상
+    private final String rangeQuery;
+    private final String updateQuery;
+    private final Map<String, Object> parameters;
+
+    public RangeUpdate(Class<?> entityType, String rangeQuery, String updateQuery, Map<String, Object> parameters) {
+        this.entityType = entityType;
+        this.rangeQuery = rangeQuery;
+        this.updateQuery = updateQuery;
+        this.parameters = new TreeMap<>(parameters); // 재시작 시 비교할 수 있게 정렬
+    }
+}
@@ -0,0 +1,419 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * username 자동완성용 메모리 인덱스
+ *
+ * 기본은 정렬된 PackedNames(중복 제거된 username + 개수)이고,
+ * 그 뒤에 커밋된 변경(save, changeUserName, delete)은 delta(username -> 개수 증감)에 쌓는다.
+ * delta가 compact-threshold를 넘으면 둘을 합쳐서 PackedNames를 새로 만든다. (DB 조회 없음)
+ * 조회는 두 정렬된 목록을 합치면서 prefix에 맞는 username을 limit 개까지 읽는다.
+ *
+ * 변경은 hibernate post-commit 이벤트로 받는다. 롤백된 변경은 반영되지 않는다.
+ * StatelessSession 쓰기(MemberJPARepository.insertStateless ...)는 커밋 후 reconcile()로 해당 username만 다시 센다.
+ * JPQL 벌크 연산 / 네이티브 쿼리 / JDBC로 바꾼 username은 rebuild() 전까지 반영되지 않는다. (POST /members/usernames/rebuild)
+ *
+ * 다시 세는 동안(rebuild 스캔, reconcile) 커밋된 변경은 DB 결과에 들어갔는지 알 수 없으므로 delta로 더하지 않고,
+ * 그 username을 기록해 뒀다가 DB에서 다시 센다. 세는 동안 또 바뀐 username이 없을 때 결과를 반영한다.
+ * 커밋과 post-commit 이벤트 사이에 마지막 재집계가 끝나는 경우만 한 번 더 세어질 수 있다. (다음 rebuild에서 맞춰진다)
+ * */
+@Slf4j
+@Component
+public class UsernameIndex implements ApplicationRunner {
+
+    private final EntityManagerFactory emf;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate recountTransaction;
+    private final boolean enabled;
+    private final int compactThreshold;
+
+    private static final int RECOUNT_CHUNK = 1000; // in 절 크기
+    private static final int MAX_RECOUNT_ROUNDS = 10;
+
+    private volatile Snapshot snapshot = new Snapshot(PackedNames.EMPTY);
+    private final List<Recorder> recorders = new ArrayList<>(); // 다시 세는 중인 작업들 (this로 동기화)
+    private boolean rebuilding; // this로 동기화
+
+    public UsernameIndex(EntityManagerFactory emf,
+                         MemberRepository memberRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${datajpa.username-index.enabled:true}") boolean enabled,
+                         @Value("${datajpa.username-index.compact-threshold:10000}") int compactThreshold) {
+        this.emf = emf;
+        this.memberRepository = memberRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // 방금 커밋한 변경이 보여야 하므로 primary에서 (replica 지연), afterCommit에서도 부르므로 새 트랜잭션
+        this.recountTransaction = new TransactionTemplate(transactionManager);
+        this.recountTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.compactThreshold = compactThreshold;
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        MemberListener listener = new MemberListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 회원 테이블을 username 순으로 스트리밍하면서 새로 만든다.
+     * 스캔하는 동안에는 기존 인덱스로 조회하고, 그 사이에 바뀐 username은 스캔이 끝난 뒤 다시 세서 새 인덱스에 넣는다.
+     * */
+    public void rebuild() {
+        long start = System.nanoTime();
+        Recorder recorder;
+        synchronized (this) {
+            if (rebuilding) {
+                return; // 이미 진행 중
+            }
+            rebuilding = true;
+            recorder = record();
+        }
+        PackedNames names;
+        try {
+            names = readOnlyTransaction.execute(status -> {
+                PackedNames.Builder builder = new PackedNames.Builder();
+                try (Stream<String> usernames = memberRepository.streamUsernames()) {
+                    usernames.forEach(username -> builder.add(username, 1));
+                }
+                return builder.build();
+            });
+            Snapshot rebuilt = new Snapshot(names);
+            settle(recorder, () -> rebuilt, () -> snapshot = rebuilt);
+        } finally {
+            synchronized (this) {
+                recorders.remove(recorder);
+                rebuilding = false;
+            }
+        }
+        log.info("username index: {}개 ({}명), {}KB, {}ms", names.size(), names.totalCount(),
+                names.footprintBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 커밋된 변경 중 hibernate 이벤트가 없는 것(StatelessSession 쓰기 등)을 반영한다.
+     * 바뀌기 전 / 후 username을 모두 넘기면 DB에서 다시 세서 맞춘다. 커밋된 뒤에 호출해야 한다.
+     * */
+    public void reconcile(Collection<String> usernames) {
+        if (!enabled || usernames.isEmpty()) {
+            return;
+        }
+        Recorder recorder;
+        synchronized (this) {
+            recorder = record();
+            touch(usernames); // 진행 중인 rebuild도 다시 세도록
+        }
+        try {
+            settle(recorder, () -> snapshot, () -> { });
+        } finally {
+            synchronized (this) {
+                recorders.remove(recorder);
+            }
+        }
+    }
+
+    /**
+     * prefix로 시작하는 username을 사전 순으로 최대 limit 개
+     * */
+    public List<String> search(String prefix, int limit) {
+        Snapshot current = snapshot;
+        PackedNames base = current.base;
+        Iterator<Map.Entry<String, Integer>> delta = prefix.isEmpty()
+                ? current.delta.entrySet().iterator()
+                : current.delta.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet().iterator();
+
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        int i = base.lowerBound(prefix);
+        Map.Entry<String, Integer> change = delta.hasNext() ? delta.next() : null;
+        while (result.size() < limit) {
+            boolean hasBase = i < base.size() && base.startsWith(i, prefix);
+            if (!hasBase && change == null) {
+                break;
+            }
+            String name;
+            int count;
+            int order = !hasBase ? 1 : change == null ? -1 : base.name(i).compareTo(change.getKey());
+            if (order < 0) {
+                name = base.name(i);
+                count = base.count(i++);
+            } else if (order > 0) {
+                name = change.getKey();
+                count = change.getValue();
+                change = delta.hasNext() ? delta.next() : null;
+            } else {
+                name = change.getKey();
+                count = base.count(i++) + change.getValue();
+                change = delta.hasNext() ? delta.next() : null;
+            }
+            if (count > 0) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 메모리 사용량 (추정)
+     * listEquivalentBytes: 같은 username을 List<String>(findUsernameList)으로 들고 있을 때
+     * */
+    public Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        PackedNames base = current.base;
+        long listBytes = 16 + 4L * base.totalCount(); // ArrayList 내부 배열 (참조 4바이트)
+        long deltaBytes = 0;
+        for (int i = 0; i < base.size(); i++) {
+            // String 객체 24 + byte[] 헤더 16 + LATIN1 문자 (중복된 username도 각각 한 개씩)
+            listBytes += base.count(i) * (24L + 16 + (base.name(i).length() + 7) / 8 * 8);
+        }
+        for (String name : current.delta.keySet()) {
+            deltaBytes += 64 + 24 + 16 + 2L * name.length(); // skip list 노드 + String
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("distinctUsernames", base.size());
+        stats.put("members", base.totalCount());
+        stats.put("deltaEntries", current.delta.size());
+        stats.put("indexBytes", base.footprintBytes() + deltaBytes);
+        stats.put("listEquivalentBytes", listBytes);
+        return stats;
+    }
+
+    synchronized void apply(String removed, String added) {
+        if (Objects.equals(removed, added)) {
+            return;
+        }
+        Snapshot current = snapshot;
+        change(current.delta, removed, added);
+        for (Recorder recorder : recorders) {
+            recorder.add(removed);
+            recorder.add(added);
+        }
+        if (!rebuilding && current.delta.size() >= compactThreshold) {
+            snapshot = new Snapshot(compact(current)); // rebuild 중에는 어차피 새로 만든다
+        }
+    }
+
+    // this로 동기화해서 호출
+    private Recorder record() {
+        Recorder recorder = new Recorder();
+        recorders.add(recorder);
+        return recorder;
+    }
+
+    // this로 동기화해서 호출
+    private void touch(Collection<String> usernames) {
+        for (Recorder recorder : recorders) {
+            usernames.forEach(recorder::add);
+        }
+    }
+
+    /**
+     * recorder에 기록된 username을 DB에서 다시 세서 target의 delta를 맞춘다. (base 개수와의 차이)
+     * 세는 동안 다시 바뀐 username은 다음 라운드에서 또 센다. 바뀐 게 없으면 lock 안에서 settled를 실행한다.
+     * */
+    private void settle(Recorder recorder, Supplier<Snapshot> target, Runnable settled) {
+        for (int round = 1; ; round++) {
+            Set<String> pending;
+            synchronized (this) {
+                pending = recorder.drain();
+                if (pending.isEmpty() || round > MAX_RECOUNT_ROUNDS) {
+                    if (!pending.isEmpty()) {
+                        log.warn("username index: 계속 바뀌는 username {}개는 다시 세지 못했습니다.", pending.size());
+                    }
+                    settled.run();
+                    return;
+                }
+            }
+            Map<String, Integer> counts = countUsernames(pending);
+            synchronized (this) {
+                Snapshot current = target.get();
+                for (String username : pending) {
+                    int diff = counts.getOrDefault(username, 0) - current.base.count(username);
+                    if (diff == 0) {
+                        current.delta.remove(username);
+                    } else {
+                        current.delta.put(username, diff);
+                    }
+                }
+            }
+        }
+    }
+
+    private Map<String, Integer> countUsernames(Set<String> usernames) {
+        return recountTransaction.execute(status -> {
+            Map<String, Integer> counts = new HashMap<>();
+            List<String> chunk = new ArrayList<>(Math.min(usernames.size(), RECOUNT_CHUNK));
+            Iterator<String> iterator = usernames.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == RECOUNT_CHUNK || !iterator.hasNext()) {
+                    for (Object[] row : memberRepository.countByUsernames(chunk)) {
+                        counts.put((String) row[0], ((Number) row[1]).intValue());
+                    }
+                    chunk.clear();
+                }
+            }
+            return counts;
+        });
+    }
+
+    private static void change(NavigableMap<String, Integer> delta, String removed, String added) {
+        if (removed != null) {
+            delta.merge(removed, -1, Integer::sum);
+        }
+        if (added != null) {
+            delta.merge(added, 1, Integer::sum);
+        }
+    }
+
+    private static PackedNames compact(Snapshot current) {
+        PackedNames base = current.base;
+        PackedNames.Builder builder = new PackedNames.Builder();
+        Iterator<Map.Entry<String, Integer>> delta = current.delta.entrySet().iterator();
+        Map.Entry<String, Integer> change = delta.hasNext() ? delta.next() : null;
+        int i = 0;
+        while (i < base.size() || change != null) {
+            int order = i >= base.size() ? 1 : change == null ? -1 : base.name(i).compareTo(change.getKey());
+            if (order < 0) {
+                builder.add(base.name(i), base.count(i++));
+            } else if (order > 0) {
+                builder.add(change.getKey(), change.getValue());
+                change = delta.hasNext() ? delta.next() : null;
+            } else {
+                builder.add(change.getKey(), base.count(i++) + change.getValue());
+                change = delta.hasNext() ? delta.next() : null;
+            }
+        }
+        return builder.build();
+    }
+
+    // 다시 세는 동안 바뀐 username (this로 동기화)
+    private static class Recorder {
+        private Set<String> usernames = new HashSet<>();
+
+        void add(String username) {
+            if (username != null) {
+                usernames.add(username);
+            }
+        }
+
+        Set<String> drain() {
+            Set<String> drained = usernames;
+            usernames = new HashSet<>();
+            return drained;
+        }
+    }
+
+    private static class Snapshot {
+        final PackedNames base;
+        final NavigableMap<String, Integer> delta;
+
+        Snapshot(PackedNames base) {
+            this(base, new ConcurrentSkipListMap<>());
+        }
+
+        Snapshot(PackedNames base, NavigableMap<String, Integer> delta) {
+            this.base = base;
+            this.delta = delta;
+        }
+    }
+
+    // 커밋된 Member insert / update / delete
+    private class MemberListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Member) {
+                apply(null, username(event.getPersister(), event.getState()));
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof Member && event.getOldState() != null) {
+                apply(username(event.getPersister(), event.getOldState()), username(event.getPersister(), event.getState()));
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Member) {
+                apply(username(event.getPersister(), event.getDeletedState()), null);
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return Member.class.isAssignableFrom(persister.getMappedClass());
+        }
+
+        private String username(EntityPersister persister, Object[] state) {
+            return (String) state[persister.getEntityMetamodel().getPropertyIndex("username")];
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.service.MemberLookupService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// leak-threshold=0 -> 반납되는 커넥션은 전부 long_held로 기록
+@SpringBootTest(properties = {"datajpa.datasource.tracking.enabled=true", "datajpa.datasource.tracking.leak-threshold=0ms"})
+class ConnectionTrackerTest {
+
+    @Autowired ConnectionTracker connectionTracker;
+    @Autowired DataSource dataSource;
+    @Autowired MemberLookupService memberLookupService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 커넥션_사용_기록() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<String, Object> report = connectionTracker.report();
+            assertThat((int) report.get("heldConnections")).isGreaterThanOrEqualTo(1);
+
+            Map<String, Map<String, Object>> pools = (Map<String, Map<String, Object>>) report.get("pools");
+            assertThat(pools).isNotEmpty();
+            assertThat(pools.values()).anyMatch(pool -> ((Integer) pool.get("active")) >= 1);
+        }
+    }
+
+    // 커넥션을 빌려간 애플리케이션 메소드로 기록된다.
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 오래_잡은_커넥션_호출_위치() throws Exception {
+        memberLookupService.findById(-1L);
+
+        Map<String, Long> longHeld = (Map<String, Long>) connectionTracker.report().get("longHeldByOwner");
+        assertThat(longHeld.keySet()).anyMatch(owner -> owner.contains("MemberLookupService.findById"));
+    }
+
+    // 감싸도 HikariDataSource 타입은 그대로
+    @Test
+    public void 빈_타입_유지() throws Exception {
+        HikariDataSource hikari = new HikariDataSource();
+        try {
+            HikariDataSource wrapped = connectionTracker.wrap("typeCheck", hikari);
+            assertThat(wrapped).isInstanceOf(HikariDataSource.class);
+            wrapped.setPoolName("typeCheck"); // 설정은 원래 객체로
+            assertThat(hikari.getPoolName()).isEqualTo("typeCheck");
+        } finally {
+            hikari.close();
+        }
+    }
+
+    // 아직 잡고 있는 커넥션은 리포트를 볼 때 잡고 있는 스레드 스택으로 owner를 찾는다.
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 잡고_있는_커넥션_owner() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            List<Map<String, Object>> held = (List<Map<String, Object>>) connectionTracker.report().get("longestHeld");
+            assertThat(held).anyMatch(row -> Boolean.TRUE.equals(row.get("leakSuspect"))
+                    && Thread.currentThread().getName().equals(row.get("thread")));
+        }
+    }
+}
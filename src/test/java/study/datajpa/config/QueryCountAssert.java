@@ -0,0 +1,32 @@
+package study.datajpa.config;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트용 SQL 개수 검증
+ * 예) assertMaxQueries(queryCounter, 2, () -> memberRepository.findMemberFetchJoin());
+ * */
+public final class QueryCountAssert {
+
+    private QueryCountAssert() {
+    }
+
+    public static <T> T assertMaxQueries(QueryCounter queryCounter, int max, Supplier<T> call) {
+        try (QueryCounter.Scope scope = queryCounter.open("test")) {
+            T result = call.get();
+            assertThat(scope.getCount())
+                    .as("SQL 개수 (N + 1 의심: %s)", scope.getSuspectedNPlusOne())
+                    .isLessThanOrEqualTo(max);
+            return result;
+        }
+    }
+
+    public static void assertMaxQueries(QueryCounter queryCounter, int max, Runnable call) {
+        assertMaxQueries(queryCounter, max, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
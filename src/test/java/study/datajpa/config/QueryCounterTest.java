@@ -0,0 +1,90 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.config.QueryCountAssert.assertMaxQueries;
+
+@SpringBootTest
+@Transactional
+class QueryCounterTest {
+
+    @Autowired QueryCounter queryCounter;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @PersistenceContext EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 4; i++) {
+            Team team = teamRepository.save(new Team("counterTeam" + i));
+            memberRepository.save(new Member("counter" + i, 10, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void 페치_조인은_쿼리_한번() throws Exception {
+        assertMaxQueries(queryCounter, 1, () -> {
+            for (Member member : memberRepository.findMemberFetchJoin()) {
+                member.getTeam().getName();
+            }
+        });
+    }
+
+    @Test
+    public void 지연_로딩은_배치로_한번에() throws Exception {
+        // when
+        List<String> suspects;
+        int count;
+        try (QueryCounter.Scope scope = queryCounter.open("test")) {
+            for (Member member : counterMembers()) {
+                member.getTeam().getName(); // Team의 @BatchSize - where team_id in (...) 한 번
+            }
+            count = scope.getCount();
+            suspects = scope.getSuspectedNPlusOne();
+        }
+
+        // then - 회원 조회 1 + 팀 조회 1
+        assertThat(count).isLessThanOrEqualTo(2);
+        assertThat(suspects).isEmpty();
+    }
+
+    @Test
+    public void N_플러스_1_감지() throws Exception {
+        // when - 회원마다 같은 조회를 반복 (배치로 묶이지 않는 N + 1)
+        List<String> suspects;
+        int count;
+        try (QueryCounter.Scope scope = queryCounter.open("test")) {
+            for (Member member : counterMembers()) {
+                memberRepository.findByUsername(member.getUsername());
+            }
+            count = scope.getCount();
+            suspects = scope.getSuspectedNPlusOne();
+        }
+
+        // then
+        assertThat(count).isGreaterThanOrEqualTo(5);
+        assertThat(suspects).hasSize(1);
+        assertThat(suspects.get(0)).containsIgnoringCase("from member");
+    }
+
+    // setUp에서 저장한 회원만 (DB에 남아 있는 다른 테스트 데이터 제외)
+    private List<Member> counterMembers() {
+        return em.createQuery("select m from Member m where m.username like 'counter%'", Member.class)
+                .getResultList();
+    }
+}
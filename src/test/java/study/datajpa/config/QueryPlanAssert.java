@@ -0,0 +1,135 @@
+package study.datajpa.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트용 실행 계획 검증 (H2 EXPLAIN)
+ * call이 실행한 SQL을 QueryCounter로 모아서 하나씩 EXPLAIN 한다.
+ * 예) assertNoTableScan(queryCounter, jdbcTemplate, () -> memberRepository.findByUsername("m1"));
+ *
+ * H2는 인덱스를 못 쓰면 계획에 PUBLIC.MEMBER.tableScan 처럼 나온다.
+ * 파라미터는 타입에 맞는 아무 값으로 채운다. (H2는 prepare 시점에 계획을 정하므로 값은 상관없다)
+ * */
+public final class QueryPlanAssert {
+
+    private QueryPlanAssert() {
+    }
+
+    public static List<Plan> explain(QueryCounter queryCounter, JdbcTemplate jdbcTemplate, Runnable call) {
+        List<String> statements;
+        try (QueryCounter.Scope scope = queryCounter.open("explain")) {
+            call.run();
+            statements = scope.getStatements();
+        }
+        List<Plan> plans = new ArrayList<>();
+        for (String sql : statements) {
+            String verb = sql.stripLeading().toLowerCase(Locale.ROOT);
+            if (verb.startsWith("select") || verb.startsWith("update") || verb.startsWith("delete")) {
+                plans.add(new Plan(sql, jdbcTemplate.execute((Connection connection) -> explain(connection, sql))));
+            }
+        }
+        return plans;
+    }
+
+    public static List<Plan> assertNoTableScan(QueryCounter queryCounter, JdbcTemplate jdbcTemplate, Runnable call) {
+        List<Plan> plans = explain(queryCounter, jdbcTemplate, call);
+        assertThat(plans).as("실행된 SQL").isNotEmpty();
+        for (Plan plan : plans) {
+            assertThat(plan.isTableScan())
+                    .as("full table scan\nSQL: %s\nPLAN: %s", plan.getSql(), plan.getPlan())
+                    .isFalse();
+        }
+        return plans;
+    }
+
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+            bindDummyParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    private static void bindDummyParameters(PreparedStatement ps) throws SQLException {
+        ParameterMetaData metaData = ps.getParameterMetaData();
+        for (int i = 1; i <= metaData.getParameterCount(); i++) {
+            int type;
+            try {
+                type = metaData.getParameterType(i);
+            } catch (SQLException e) {
+                type = Types.OTHER;
+            }
+            switch (type) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    ps.setLong(i, 1);
+                    break;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                case Types.DOUBLE:
+                case Types.REAL:
+                case Types.FLOAT:
+                    ps.setBigDecimal(i, BigDecimal.ONE);
+                    break;
+                case Types.TIMESTAMP:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                case Types.DATE:
+                    ps.setTimestamp(i, new Timestamp(System.currentTimeMillis()));
+                    break;
+                case Types.BOOLEAN:
+                    ps.setBoolean(i, false);
+                    break;
+                default:
+                    ps.setString(i, "1"); // 숫자 컬럼과 비교해도 변환된다
+            }
+        }
+    }
+
+    public static class Plan {
+        private final String sql;
+        private final String plan;
+
+        Plan(String sql, String plan) {
+            this.sql = sql;
+            this.plan = plan;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getPlan() {
+            return plan;
+        }
+
+        public boolean isTableScan() {
+            return plan.contains(".tableScan");
+        }
+
+        @Override
+        public String toString() {
+            return (isTableScan() ? "[SCAN] " : "[INDEX] ") + sql.replaceAll("\\s+", " ") + "\n" + plan;
+        }
+    }
+}
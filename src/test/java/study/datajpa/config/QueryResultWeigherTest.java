@@ -0,0 +1,30 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryResultWeigherTest {
+
+    QueryResultWeigher weigher = new QueryResultWeigher();
+
+    @Test
+    public void 결과_row_수로_무게() throws Exception {
+        assertThat(weigher.weigh("key", List.of(1L, 2L, 3L))).isEqualTo(4);
+        assertThat(weigher.weigh("key", new CacheItem(1L, List.of(1L, 2L)))).isEqualTo(3); // hibernate CacheItem 모양
+        assertThat(weigher.weigh("key", new CacheItem(1L, null))).isEqualTo(1);
+        assertThat(weigher.weigh("key", 1L)).isEqualTo(1); // 모르는 값은 엔트리 하나
+    }
+
+    static class CacheItem {
+        private final long timestamp;
+        private final List<?> results;
+
+        CacheItem(long timestamp, List<?> results) {
+            this.timestamp = timestamp;
+            this.results = results;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class QueryWarmupTest {
+
+    @Autowired QueryWarmup queryWarmup;
+    @Autowired ApplicationContext applicationContext;
+    @Autowired EntityManagerFactory emf;
+
+    // 기동 시 ApplicationRunner로 이미 실행됐고, 실패가 있었다면 컨텍스트가 뜨지 않았다.
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 기동_시_JPQL_컴파일() throws Exception {
+        Map<String, Object> report = queryWarmup.report();
+        Map<String, QueryWarmup.QueryResult> queries = (Map<String, QueryWarmup.QueryResult>) report.get("queries");
+
+        assertThat(queries).containsKeys(
+                "@NamedQuery Member.findByUsername",
+                "MemberRepository.findMemberDto",
+                "MemberJPARepository.BULK_AGE_PLUS",
+                "TeamJPARepository.FETCH_MEMBERS",
+                "MemberQueryRepository.FIND_ALL_MEMBERS",
+                "MemberRepositoryCustomImpl.FIND_BY_AGE",
+                "MemberListingService.FIND_MEMBER_ROWS",
+                "MemberBulkUpdateService.AGE_PLUS",
+                "ChunkedBulkUpdater.FIND_DONE_CHUNKS",
+                "ChunkedJobRunner.FIND_PARTITIONS");
+        assertThat(queries.values()).allMatch(result -> result.getError() == null);
+        assertThat(report).containsKey("planCacheHitRatio");
+    }
+
+    @Test
+    public void 잘못된_JPQL이면_실패() throws Exception {
+        try (GenericApplicationContext context = brokenContext()) {
+            assertThatThrownBy(() -> new QueryWarmup(context, emf, true, true).run(null))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("BrokenRepository.BROKEN");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void fail_fast가_꺼져_있으면_리포트에만_남김() throws Exception {
+        try (GenericApplicationContext context = brokenContext()) {
+            QueryWarmup warmup = new QueryWarmup(context, emf, true, false);
+            warmup.run(null);
+
+            Map<String, QueryWarmup.QueryResult> queries =
+                    (Map<String, QueryWarmup.QueryResult>) warmup.report().get("queries");
+            assertThat(queries.get("BrokenRepository.BROKEN").getError()).isNotNull();
+            assertThat(queries.get("MemberJPARepository.FIND_ALL").getError()).isNull();
+        }
+    }
+
+    // 애플리케이션 컨텍스트를 부모로 두고 잘못된 JPQL 상수를 가진 빈만 추가한다.
+    private GenericApplicationContext brokenContext() {
+        GenericApplicationContext context = new GenericApplicationContext(applicationContext);
+        context.registerBean(BrokenRepository.class);
+        context.refresh();
+        return context;
+    }
+
+    @Repository
+    static class BrokenRepository {
+        static final String BROKEN = "select m from Member m where m.nope = 1";
+    }
+}
@@ -0,0 +1,59 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * in-memory H2 두 개로 라우팅 확인
+ * replica는 primary 스키마만 복사하고 데이터는 복제하지 않는다.
+ * -> replica로 간 조회는 primary에 저장한 회원을 못 찾아야 한다.
+ * */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replica.username=sa"
+})
+class ReplicationRoutingTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired @Qualifier("primaryDataSource") DataSource primary;
+    @Autowired @Qualifier("replicaDataSource") DataSource replica;
+
+    @BeforeEach
+    void copySchema() {
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("drop all objects");
+        for (String ddl : new JdbcTemplate(primary).queryForList("script nodata", String.class)) {
+            replicaJdbc.execute(ddl);
+        }
+    }
+
+    @Test
+    public void readOnly_조회는_replica() throws Exception {
+        // given - save()는 읽기/쓰기 트랜잭션 -> primary
+        memberRepository.save(new Member("routing", 10));
+
+        // when
+        List<Member> fromReplica = memberRepository.findByUsername("routing"); // readOnly
+        List<Member> fromPrimary = new TransactionTemplate(transactionManager)
+                .execute(status -> memberRepository.findByUsername("routing")); // 쓰기 트랜잭션에 참여
+
+        // then
+        assertThat(fromReplica).isEmpty();
+        assertThat(fromPrimary).hasSize(1);
+    }
+}
@@ -0,0 +1,59 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TableWriteTrackerTest {
+
+    TableWriteTracker tracker = new TableWriteTracker();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void 쓴_테이블() throws Exception {
+        assertThat(TableWriteTracker.writtenTable("insert into member (age, username) values (?, ?)")).isEqualTo("member");
+        assertThat(TableWriteTracker.writtenTable("update public.team set name=? where team_id=?")).isEqualTo("team");
+        assertThat(TableWriteTracker.writtenTable("delete from member where member_id=?")).isEqualTo("member");
+        assertThat(TableWriteTracker.writtenTable("select * from member")).isNull();
+    }
+
+    // 커밋 전에 다른 트랜잭션이 읽어서 저장한 버전은 커밋 후에 맞지 않아야 한다.
+    @Test
+    public void 트랜잭션이_끝나면_버전을_한번_더() throws Exception {
+        // given - 쓰기 트랜잭션
+        TransactionSynchronizationManager.initSynchronization();
+        tracker.onStatement("update member set age=? where member_id=?");
+        long duringWrite = tracker.version("member"); // 동시에 읽은 쪽이 커밋 전 데이터와 함께 저장하는 버전
+
+        assertThat(duringWrite).isEqualTo(1);
+        assertThat(tracker.hasPendingWrite("member")).isTrue();
+        assertThat(tracker.hasPendingWrite("team")).isFalse();
+
+        // when - 커밋
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // then
+        assertThat(tracker.version("member")).isGreaterThan(duringWrite);
+        assertThat(tracker.hasPendingWrite("member")).isFalse();
+    }
+
+    // 트랜잭션 밖의 쓰기는 SQL 준비 시점에만
+    @Test
+    public void 트랜잭션_밖() throws Exception {
+        tracker.onStatement("insert into team (name) values (?)");
+        assertThat(tracker.version("TEAM")).isEqualTo(1);
+        assertThat(tracker.hasPendingWrite("team")).isFalse();
+    }
+}
@@ -12,6 +12,7 @@ import javax.persistence.PersistenceContext;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @Transactional
@@ -75,4 +76,15 @@ class MemberTest {
         System.out.println("findMember.getCreatedBy() = " + findMember.getCreatedBy());
         System.out.println("findMember.getLastModifiedBy() = " + findMember.getLastModifiedBy());
     }
+
+    // 등록자는 트랜잭션(요청) 안에서 한 번만 조회해서 재사용한다. (CachingAuditorAware)
+    @Test
+    public void auditor_캐시() throws Exception {
+        Member member1 = memberRepository.save(new Member("auditor1"));
+        Member member2 = memberRepository.save(new Member("auditor2"));
+        em.flush();
+
+        assertThat(member1.getCreatedBy()).isNotNull();
+        assertThat(member2.getCreatedBy()).isEqualTo(member1.getCreatedBy());
+    }
 }
\ No newline at end of file
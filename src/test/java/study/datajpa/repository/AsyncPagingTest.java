@@ -0,0 +1,88 @@
+package study.datajpa.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// count는 다른 커넥션에서 실행되므로 테스트 데이터가 커밋되어 있어야 한다. (@Transactional 없음)
+@SpringBootTest(properties = "datajpa.paging.async-count.timeout=5s")
+class AsyncPagingTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PageCounter pageCounter;
+    @Autowired DataSource dataSource;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void 비동기_count_페이징() throws Exception {
+        // given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(new Member("async" + i, 66));
+        }
+        memberRepository.saveAll(members);
+
+        // when
+        Slice<Member> first = memberRepository.findByAge(66, PageRequest.of(0, 2, Sort.by("username")), CountMode.ASYNC);
+        Slice<Member> last = memberRepository.findByAge(66, PageRequest.of(2, 2, Sort.by("username")), CountMode.ASYNC);
+
+        // then
+        assertThat(first).isInstanceOf(Page.class);
+        assertThat(((Page<Member>) first).getTotalElements()).isEqualTo(5);
+        assertThat(first.getContent()).extracting("username").containsExactly("async0", "async1");
+        assertThat(((Page<Member>) last).getTotalElements()).isEqualTo(5); // 마지막 페이지는 count 없이
+    }
+
+    // count가 timeout 안에 안 끝나면 null -> 호출한 쪽은 Slice
+    @Test
+    public void 비동기_count_timeout() throws Exception {
+        PageCounter.PendingCount count = pageCounter.countAsync(() -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1L;
+        }, Duration.ofMillis(50));
+
+        assertThat(count.await()).isNull();
+        assertThat(pageCounter.countAsync(() -> 3L).await()).isEqualTo(3L);
+    }
+
+    // timeout이 나면 실행 중인 count 쿼리를 취소해서 워커 스레드와 커넥션을 바로 돌려받는다.
+    @Test
+    public void 비동기_count_timeout이면_쿼리_취소() throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        int activeConnections = pool.getActiveConnections();
+
+        // 수 초 이상 걸리는 count (1억 row cross join)
+        PageCounter.PendingCount count = pageCounter.countAsync(() -> ((Number) em.createNativeQuery(
+                "select count(*) from system_range(1, 10000) a, system_range(1, 10000) b where a.x + b.x > 0")
+                .getSingleResult()).longValue(), Duration.ofMillis(200));
+
+        assertThat(count.await()).isNull();
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos(); // 트랜잭션 timeout(6초)보다 짧게
+        while ((pageCounter.activeCountWorkers() > 0 || pool.getActiveConnections() > activeConnections)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(pageCounter.activeCountWorkers()).isZero();
+        assertThat(pool.getActiveConnections()).isEqualTo(activeConnections);
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import study.datajpa.entity.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// insertAll은 JDBC로 바로 커밋된다. (테스트 트랜잭션 없음, id 접두사로 구분)
+@SpringBootTest
+class ItemBulkInsertTest {
+
+    static final int COUNT = 100_000;
+
+    @Autowired ItemRepository itemRepository;
+
+    @Test
+    public void 십만건_insert_처리량() throws Exception {
+        // when
+        long start = System.nanoTime();
+        long inserted = itemRepository.insertAll(items("bulk", 0, COUNT), DuplicateMode.FAIL);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("insertAll " + COUNT + "건 " + elapsedMillis + "ms, " + (COUNT * 1000L / elapsedMillis) + " rows/s");
+
+        // then
+        assertThat(inserted).isEqualTo(COUNT);
+        assertThat(itemRepository.existsById("bulk" + (COUNT - 1))).isTrue();
+    }
+
+    @Test
+    public void 중복_id_처리() throws Exception {
+        // given
+        itemRepository.insertAll(items("dup", 0, 100), DuplicateMode.FAIL);
+
+        // when - 50 ~ 149 중 50 ~ 99는 이미 있음
+        long ignored = itemRepository.insertAll(items("dup", 50, 150), DuplicateMode.IGNORE);
+        long upserted = itemRepository.insertAll(items("dup", 140, 160), DuplicateMode.UPSERT);
+
+        // then
+        assertThat(ignored).isEqualTo(50);
+        assertThat(upserted).isEqualTo(20); // update 10 + insert 10
+        assertThat(itemRepository.existsById("dup159")).isTrue();
+        assertThatThrownBy(() -> itemRepository.insertAll(items("dup", 0, 1), DuplicateMode.FAIL))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static List<Item> items(String prefix, int from, int to) {
+        List<Item> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(new Item(prefix + i));
+        }
+        return items;
+    }
+}
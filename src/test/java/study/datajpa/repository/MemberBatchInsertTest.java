@@ -0,0 +1,96 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 시퀀스 pooled-lo + JDBC 배치가 적용되면 1만 건 저장에 DB 왕복이 수백 번 이하로 줄어야 한다.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class MemberBatchInsertTest {
+
+    static final int COUNT = 10_000;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJPARepository memberJPARepository;
+    @PersistenceContext EntityManager em;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void 스프링_데이터_JPA_saveAll_배치() throws Exception {
+        // when
+        memberRepository.saveAll(members("batch"));
+        em.flush();
+
+        // then
+        // insert 10000 / batch_size 100 = 100 + 시퀀스 10000 / 50 = 200
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(COUNT / 10);
+    }
+
+    @Test
+    public void 순수_JPA_save_배치() throws Exception {
+        // when
+        memberJPARepository.saveAll(members("jpaBatch"));
+        em.flush();
+
+        // then
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(COUNT / 10);
+    }
+
+    @Test
+    public void StatelessSession_쓰기() throws Exception {
+        // when
+        List<Member> members = members("stateless");
+        memberJPARepository.insertStateless(members);
+
+        // then - 영속성 컨텍스트에 올라가지 않고 바로 배치로 나간다.
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(COUNT / 10);
+        assertThat(em.contains(members.get(0))).isFalse();
+        Member inserted = em.find(Member.class, members.get(0).getId());
+        assertThat(inserted.getUsername()).isEqualTo("stateless0");
+        assertThat(inserted.getCreatedDate()).isNotNull(); // auditing 직접 적용
+        assertThat(inserted.getVersion()).isEqualTo(0L);
+        em.clear();
+
+        // when - 수정 / 삭제
+        List<Member> changed = members.subList(0, 100);
+        changed.forEach(member -> member.setAge(200));
+        memberJPARepository.updateStateless(changed);
+        memberJPARepository.deleteStateless(members.subList(100, 200));
+
+        // then
+        Member updated = em.find(Member.class, members.get(0).getId());
+        assertThat(updated.getAge()).isEqualTo(200);
+        assertThat(updated.getVersion()).isEqualTo(1L); // @Version은 올라간다
+        assertThat(em.find(Member.class, members.get(100).getId())).isNull();
+    }
+
+    private List<Member> members(String prefix) {
+        List<Member> members = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            members.add(new Member(prefix + i, i % 100));
+        }
+        return members;
+    }
+}
@@ -8,8 +8,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.AuditStampProvider;
 import study.datajpa.entity.Member;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -22,6 +26,10 @@ class MemberJPARepositoryTest {
 
     @Autowired
     MemberJPARepository memberJPARepository;
+    @Autowired
+    AuditStampProvider auditStampProvider;
+    @PersistenceContext
+    EntityManager em;
 
     @Test
     public void testMember() {
@@ -136,12 +144,24 @@ class MemberJPARepositoryTest {
         memberJPARepository.save(new Member("m2", 19));
         memberJPARepository.save(new Member("m3", 20));
         memberJPARepository.save(new Member("m4", 21));
-        memberJPARepository.save(new Member("m5", 40));
+        Member m5 = memberJPARepository.save(new Member("m5", 40));
+        em.flush();
+        // insert 때 남은 수정자와 구분되도록 지워 둔다. (트랜잭션 안에서는 수정자가 같다 - CachingAuditorAware)
+        em.createQuery("update Member m set m.lastModifiedBy = null where m.id = :id")
+                .setParameter("id", m5.getId())
+                .executeUpdate();
+        LocalDateTime before = m5.getLastModifiedDate();
+        Thread.sleep(10);
+        String auditor = auditStampProvider.current().getModifiedBy();
 
         // when
         int resultCount = memberJPARepository.bulkAgePlus(20);
+        Member member = memberJPARepository.find(m5.getId()); // bulkAgePlus가 em.clear() 했으므로 DB에서 다시 읽는다
 
-        // then
+        // then - 벌크 연산도 수정자 / 수정 시각을 남긴다
         assertThat(resultCount).isEqualTo(3);
+        assertThat(member.getAge()).isEqualTo(41);
+        assertThat(member.getLastModifiedBy()).isEqualTo(auditor);
+        assertThat(member.getLastModifiedDate()).isAfter(before);
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.config.QueryCounter;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.config.QueryCountAssert.assertMaxQueries;
+
+// 쿼리 캐시는 커밋된 쓰기 기준으로 무효화되므로 @Transactional을 걸지 않는다. (조회마다 readOnly 트랜잭션)
+@SpringBootTest
+class MemberQueryCacheTest {
+
+    // 쓰기 시각과 조회 시작 시각이 같은 ms면 hibernate는 결과를 stale로 본다.
+    static final long TIMESTAMP_GRANULARITY_MS = 10;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJPARepository memberJPARepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired QueryCounter queryCounter;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void IN_쿼리_캐시와_무효화() throws Exception {
+        // given
+        String name = "queryCache-" + UUID.randomUUID();
+        memberRepository.save(new Member(name, 5000));
+        Thread.sleep(TIMESTAMP_GRANULARITY_MS);
+
+        // when
+        assertThat(memberRepository.findByNames(List.of(name))).hasSize(1);
+        long hits = statistics.getQueryCacheHitCount();
+        assertThat(memberRepository.findByNames(List.of(name))).hasSize(1);
+
+        // then - 같은 쿼리 + 같은 파라미터는 캐시에서
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+
+        // 엔티티 저장 -> member 테이블 결과 무효화
+        memberRepository.save(new Member(name, 5000));
+        assertThat(memberRepository.findByNames(List.of(name))).hasSize(2);
+
+        // 벌크 수정 -> 무효화
+        memberRepository.bulkAgePlus(5000);
+        assertThat(memberRepository.findByNames(List.of(name)))
+                .extracting(Member::getAge).containsOnly(5001);
+    }
+
+    // 쿼리 캐시는 id만 갖고 있다. member 리전에서 빠진 회원은 id마다 select 하지 않고 @BatchSize 단위로 한 번에 읽는다.
+    @Test
+    public void 쿼리_캐시_hit_엔티티는_배치로_로딩() throws Exception {
+        // given
+        String prefix = "queryCacheBatch-" + UUID.randomUUID() + "-";
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            names.add(prefix + i);
+            memberRepository.save(new Member(prefix + i, 10));
+        }
+        Thread.sleep(TIMESTAMP_GRANULARITY_MS);
+        assertThat(memberRepository.findByNames(names)).hasSize(20);
+        emf.getCache().evict(Member.class);
+
+        // when
+        long hits = statistics.getQueryCacheHitCount();
+        List<Member> members = assertMaxQueries(queryCounter, 1, () -> memberRepository.findByNames(names));
+
+        // then
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+        assertThat(members).extracting(Member::getUsername).containsExactlyInAnyOrderElementsOf(names);
+    }
+
+    @Test
+    public void DTO_쿼리_캐시와_StatelessSession_쓰기_무효화() throws Exception {
+        // given
+        Team team = teamRepository.save(new Team("queryCacheTeam"));
+        String name = "queryCache-" + UUID.randomUUID();
+        memberRepository.save(new Member(name, 10, team));
+        Thread.sleep(TIMESTAMP_GRANULARITY_MS);
+        int before = memberRepository.findMemberDto().size();
+
+        // when
+        long hits = statistics.getQueryCacheHitCount();
+        List<MemberDto> cached = memberRepository.findMemberDto();
+
+        // then
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+        assertThat(cached).hasSize(before);
+
+        // StatelessSession 쓰기도 쿼리 캐시를 무효화한다.
+        memberJPARepository.insertStateless(List.of(new Member(name + "-stateless", 10, team)));
+        assertThat(memberRepository.findMemberDto()).hasSize(before + 1);
+    }
+}
@@ -0,0 +1,160 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.QueryCounter;
+import study.datajpa.config.QueryPlanAssert;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.UsernameOnlyDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.config.QueryPlanAssert.assertNoTableScan;
+
+// 자주 쓰는 조회는 인덱스를 타야 한다. (Member, Team의 @Table(indexes))
+// 나머지 MemberRepository 쿼리는 전체 읽기로 분류해서 실행 계획만 출력
+// MemberRepository에 메소드를 추가하면 둘 중 하나에 넣어야 한다. (모든_쿼리_메소드_분류)
+// 키는 메소드 이름, 같은 메소드의 다른 호출은 "메소드 (설명)", 다른 리파지터리는 "TeamRepository.메소드"
+@SpringBootTest
+@Transactional
+class MemberQueryPlanTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired QueryCounter queryCounter;
+    @Autowired DataSource dataSource;
+    @PersistenceContext EntityManager em;
+
+    JdbcTemplate jdbcTemplate;
+    List<Team> teams;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        teams = teamRepository.saveAll(List.of(new Team("planA"), new Team("planB")));
+        for (int i = 0; i < 100; i++) {
+            memberRepository.save(new Member("plan" + i, i % 20, teams.get(i % 2)));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void 모든_쿼리_메소드_분류() throws Exception {
+        Set<String> classified = new HashSet<>();
+        for (String key : hotQueries().keySet()) {
+            classified.add(key.split(" ")[0]);
+        }
+        for (String key : fullReads().keySet()) {
+            classified.add(key.split(" ")[0]);
+        }
+
+        Set<String> methods = new TreeSet<>();
+        for (Class<?> type : List.of(MemberRepository.class, MemberRepositoryCustom.class)) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (!method.isSynthetic() && !method.isDefault() && !Modifier.isStatic(method.getModifiers())) {
+                    methods.add(method.getName());
+                }
+            }
+        }
+        methods.removeAll(classified);
+
+        assertThat(methods)
+                .as("인덱스를 타야 하는 쿼리(hotQueries)인지 전체 읽기(fullReads)인지 정해야 하는 메소드")
+                .isEmpty();
+    }
+
+    @Test
+    public void 자주_쓰는_쿼리는_인덱스() throws Exception {
+        hotQueries().forEach((name, call) -> {
+            em.clear();
+            System.out.println("== " + name);
+            assertNoTableScan(queryCounter, jdbcTemplate, call).forEach(System.out::println);
+        });
+    }
+
+    @Test
+    public void 전체_쿼리_실행_계획() throws Exception {
+        fullReads().forEach((name, call) -> {
+            em.clear();
+            System.out.println("== " + name);
+            List<QueryPlanAssert.Plan> plans = QueryPlanAssert.explain(queryCounter, jdbcTemplate, call);
+            plans.forEach(System.out::println);
+            assertThat(plans).as("%s 실행된 SQL", name).isNotEmpty();
+            assertThat(plans).allMatch(plan -> !plan.getPlan().isBlank());
+        });
+    }
+
+    private Map<String, Runnable> hotQueries() {
+        Map<String, Runnable> hot = new LinkedHashMap<>();
+        hot.put("findByUsername", () -> memberRepository.findByUsername("plan1"));
+        hot.put("findByUsernameAndAgeGreaterThan", () -> memberRepository.findByUsernameAndAgeGreaterThan("plan1", 0));
+        hot.put("findByAge (order by username)", () -> memberRepository.findByAge(10, PageRequest.of(1, 2, Sort.by("username"))));
+        hot.put("findByAge (CountMode)", () -> memberRepository.findByAge(10, PageRequest.of(1, 2, Sort.by("username")), CountMode.EXACT));
+        hot.put("findMember", () -> memberRepository.findMember("plan1", 1));
+        hot.put("findByNames", () -> memberRepository.findByNames(List.of("plan1", "plan2")));
+        hot.put("findListByUsername", () -> memberRepository.findListByUsername("plan1"));
+        hot.put("findMemberByUsername", () -> memberRepository.findMemberByUsername("plan1"));
+        hot.put("findOptionalByUsername", () -> memberRepository.findOptionalByUsername("plan1"));
+        hot.put("findEntityGraphByUsername", () -> memberRepository.findEntityGraphByUsername("plan1"));
+        hot.put("findReadOnlyByUsername", () -> memberRepository.findReadOnlyByUsername("plan1"));
+        hot.put("findLockByUsername", () -> memberRepository.findLockByUsername("plan1"));
+        hot.put("findByNativeQuery", () -> memberRepository.findByNativeQuery("plan1"));
+        hot.put("findDtoByUsername", () -> memberRepository.findDtoByUsername("plan1", MemberDto.class));
+        hot.put("findProjectionsByUsername", () -> memberRepository.findProjectionsByUsername("plan1", UsernameOnlyDto.class));
+        hot.put("countByUsernames", () -> memberRepository.countByUsernames(List.of("plan1", "plan2")));
+        hot.put("findKeysetFirst", () -> memberRepository.findKeysetFirst(PageRequest.of(0, 3)));
+        hot.put("findKeysetAfter", () -> memberRepository.findKeysetAfter("plan1", 0L, PageRequest.of(0, 3)));
+        hot.put("findKeysetByAgeFirst", () -> memberRepository.findKeysetByAgeFirst(10, PageRequest.of(0, 3)));
+        hot.put("findKeysetByAgeAfter", () -> memberRepository.findKeysetByAgeAfter(10, 0L, PageRequest.of(0, 3)));
+        hot.put("TeamRepository.fetchMembers (team_id)", () -> teamRepository.fetchMembers(teamRepository.findAllById(
+                List.of(teams.get(0).getId(), teams.get(1).getId()))));
+        hot.put("TeamRepository.findFirstByName", () -> teamRepository.findFirstByName("planA"));
+        return hot;
+    }
+
+    private Map<String, Runnable> fullReads() {
+        Map<String, Runnable> all = new LinkedHashMap<>();
+        all.put("findAll", () -> memberRepository.findAll());
+        all.put("findTop3HelloBy", () -> memberRepository.findTop3HelloBy());
+        all.put("findUsernameList", () -> memberRepository.findUsernameList());
+        all.put("findMemberDto", () -> memberRepository.findMemberDto());
+        all.put("findMemberFetchJoin", () -> memberRepository.findMemberFetchJoin());
+        all.put("findMemberEntityGraph", () -> memberRepository.findMemberEntityGraph());
+        all.put("findMemberCustom", () -> memberRepository.findMemberCustom());
+        all.put("findAll (CountMode)", () -> memberRepository.findAll(PageRequest.of(1, 2, Sort.by("username")), CountMode.EXACT));
+        all.put("findByNativeProjection", () -> memberRepository.findByNativeProjection(PageRequest.of(1, 2)));
+        all.put("streamMemberDto", () -> {
+            try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+                stream.limit(1).forEach(dto -> { });
+            }
+        });
+        all.put("streamUsernames", () -> {
+            try (Stream<String> stream = memberRepository.streamUsernames()) {
+                stream.limit(1).forEach(username -> { });
+            }
+        });
+        all.put("bulkAgePlus", () -> memberRepository.bulkAgePlus(19));
+        return all;
+    }
+}
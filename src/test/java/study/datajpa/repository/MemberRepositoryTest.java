@@ -11,6 +11,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.querydsl.QPageRequest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.AuditStampProvider;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.dto.UsernameOnlyDto;
 import study.datajpa.entity.Member;
@@ -19,9 +21,13 @@ import study.datajpa.entity.Team;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.lang.reflect.Array;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +37,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class MemberRepositoryTest {
     @Autowired MemberRepository memberRepository;
     @Autowired TeamRepository teamRepository;
+    @Autowired AuditStampProvider auditStampProvider;
     @PersistenceContext
     EntityManager em;
 
@@ -172,6 +179,27 @@ class MemberRepositoryTest {
         assertThat(memberDto.get(0).getUsername()).isEqualTo("member1");
         assertThat(memberDto.get(0).getId()).isEqualTo(m1.getId());
     }
+    // export용 스트림 - 팀이 없는 회원도 left join으로 포함
+    @Test
+    public void memberDto_스트림() throws Exception {
+        // given
+        Team t1 = new Team("streamTeam");
+        teamRepository.save(t1);
+        memberRepository.save(new Member("stream1", 10, t1));
+        memberRepository.save(new Member("stream2", 10));
+        em.flush();
+        em.clear();
+
+        // when
+        List<MemberDto> result;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            result = stream.filter(dto -> dto.getUsername().startsWith("stream"))
+                    .collect(Collectors.toList());
+        }
+
+        // then
+        assertThat(result).extracting(MemberDto::getTeamName).containsExactly("streamTeam", null);
+    }
     // 컬렉션 파라미터 바인딩
     @Test
     public void 컬렉션_파라미터_바인딩()throws Exception {
@@ -284,6 +312,109 @@ class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue(); // 다음 페이지가 있는가?
         assertThat(page.isLast()).isFalse(); // 마지막 페이지인가?
     }
+    // 키셋 페이징 - (age, id) 기준으로 끊어 읽어도 빠짐없이, 중복없이 읽혀야 한다.
+    @Test
+    public void 키셋_페이징() throws Exception {
+        // given
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("keyset" + i, 77));
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        List<Member> first = memberRepository.findKeysetByAgeFirst(77, PageRequest.of(0, 3));
+        Member last = first.get(first.size() - 1);
+        List<Member> second = memberRepository.findKeysetByAgeAfter(77, last.getId(), PageRequest.of(0, 3));
+
+        // then
+        assertThat(first.size()).isEqualTo(3);
+        assertThat(second.size()).isEqualTo(2);
+        assertThat(second.get(0).getId()).isGreaterThan(last.getId());
+    }
+
+    // 키셋 페이징 - (username, id) 기준. 같은 username은 id 순으로 이어지고, null username은 나오지 않는다.
+    @Test
+    public void 키셋_페이징_username() throws Exception {
+        // given - 다른 테스트 데이터보다 뒤에 정렬되는 username (마지막 페이지 확인용)
+        String prefix = "힣keyset-" + UUID.randomUUID() + "-";
+        Member a1 = memberRepository.save(new Member(prefix + "a", 10));
+        Member a2 = memberRepository.save(new Member(prefix + "a", 10));
+        Member a3 = memberRepository.save(new Member(prefix + "a", 10));
+        Member b1 = memberRepository.save(new Member(prefix + "b", 10));
+        Member b2 = memberRepository.save(new Member(prefix + "b", 10));
+        memberRepository.save(new Member(null, 10));
+        em.flush();
+        em.clear();
+
+        // when - 이전 페이지 마지막 row의 (username, id)를 커서로
+        List<Member> first = memberRepository.findKeysetAfter(prefix, 0L, PageRequest.of(0, 2));
+        Member last = first.get(first.size() - 1);
+        List<Member> second = memberRepository.findKeysetAfter(last.getUsername(), last.getId(), PageRequest.of(0, 2));
+        last = second.get(second.size() - 1);
+        List<Member> third = memberRepository.findKeysetAfter(last.getUsername(), last.getId(), PageRequest.of(0, 2));
+        last = third.get(third.size() - 1);
+        List<Member> end = memberRepository.findKeysetAfter(last.getUsername(), last.getId(), PageRequest.of(0, 2));
+
+        // then
+        assertThat(first).extracting(Member::getId).containsExactly(a1.getId(), a2.getId());
+        assertThat(second).extracting(Member::getId).containsExactly(a3.getId(), b1.getId()); // 같은 username 사이에서 끊겨도 이어서
+        assertThat(third).extracting(Member::getId).containsExactly(b2.getId()); // 마지막 페이지
+        assertThat(end).isEmpty();
+        assertThat(memberRepository.findKeysetFirst(PageRequest.of(0, 1)))
+                .extracting(Member::getUsername).doesNotContainNull();
+    }
+
+    @Test
+    public void 키셋_커서_토큰() throws Exception {
+        MemberCursor cursor = new MemberCursor(42L, "user:name");
+
+        MemberCursor decoded = MemberCursor.decode(cursor.encode());
+
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getUsername()).isEqualTo("user:name");
+        assertThatThrownBy(() -> MemberCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // count 전략 - CACHED는 member 테이블에 쓰기가 생기면 다시 센다.
+    @Test
+    public void 페이징_count_캐시() throws Exception {
+        // given
+        for (int i = 0; i < 3; i++) {
+            memberRepository.save(new Member("count" + i, 88));
+        }
+        em.flush();
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("username"));
+
+        // when
+        Page<Member> before = (Page<Member>) memberRepository.findByAge(88, pageRequest, CountMode.CACHED);
+        memberRepository.save(new Member("count3", 88));
+        em.flush(); // insert -> 캐시 무효화
+        Page<Member> after = (Page<Member>) memberRepository.findByAge(88, pageRequest, CountMode.CACHED);
+
+        // then
+        assertThat(before.getTotalElements()).isEqualTo(3);
+        assertThat(after.getTotalElements()).isEqualTo(4);
+    }
+
+    // count 전략 - NONE은 count 쿼리 없이 Slice
+    @Test
+    public void 페이징_count_없음() throws Exception {
+        // given
+        for (int i = 0; i < 3; i++) {
+            memberRepository.save(new Member("slice" + i, 89));
+        }
+
+        // when
+        Slice<Member> slice = memberRepository.findByAge(89, PageRequest.of(0, 2), CountMode.NONE);
+
+        // then
+        assertThat(slice).isNotInstanceOf(Page.class);
+        assertThat(slice.getContent().size()).isEqualTo(2);
+        assertThat(slice.hasNext()).isTrue();
+    }
+
     // 벌크성 수정 쿼리 with 스프링 데이터 JPA
     // Best Practice : 벌크 연산 이후 영속성 컨텍스트를 비워줘야 한다.
     @Test
@@ -293,7 +424,15 @@ class MemberRepositoryTest {
         memberRepository.save(new Member("m2", 19));
         memberRepository.save(new Member("m3", 20));
         memberRepository.save(new Member("m4", 21));
-        memberRepository.save(new Member("m5", 40));
+        Member m5 = memberRepository.save(new Member("m5", 40));
+        em.flush();
+        // insert 때 남은 수정자와 구분되도록 지워 둔다. (트랜잭션 안에서는 수정자가 같다 - CachingAuditorAware)
+        em.createQuery("update Member m set m.lastModifiedBy = null where m.id = :id")
+                .setParameter("id", m5.getId())
+                .executeUpdate();
+        LocalDateTime before = m5.getLastModifiedDate();
+        Thread.sleep(10);
+        String auditor = auditStampProvider.current().getModifiedBy();
 
         // when
         int resultCount = memberRepository.bulkAgePlus(20);
@@ -304,8 +443,11 @@ class MemberRepositoryTest {
         Member member = result.get(0);
         System.out.println("member = " + member); // 얘는 40살일까 41살일까?
 
-        // then
+        // then - 벌크 연산도 수정자 / 수정 시각을 남긴다
         assertThat(resultCount).isEqualTo(3);
+        assertThat(member.getAge()).isEqualTo(41);
+        assertThat(member.getLastModifiedBy()).isEqualTo(auditor);
+        assertThat(member.getLastModifiedDate()).isAfter(before);
     }
 
     // 엔티티 그래프 실습
@@ -413,6 +555,29 @@ class MemberRepositoryTest {
         // then
     }
 
+    // 생성자 기반 DTO 프로젝션 - 프록시 없이 필요한 컬럼만
+    @Test
+    public void dto_프로젝션() throws Exception {
+        // given
+        Team team1 = new Team("dtoTeam");
+        teamRepository.save(team1);
+        memberRepository.save(new Member("dtoMember", 10, team1));
+        memberRepository.save(new Member("dtoNoTeam", 20));
+        em.flush();
+        em.clear();
+
+        // when
+        List<MemberDto> withTeam = memberRepository.findDtoByUsername("dtoMember", MemberDto.class);
+        List<MemberDto> noTeam = memberRepository.findDtoByUsername("dtoNoTeam", MemberDto.class);
+        List<UsernameOnlyDto> usernameOnly = memberRepository.findDtoByUsername("dtoMember", UsernameOnlyDto.class);
+
+        // then
+        assertThat(withTeam.get(0).getTeamName()).isEqualTo("dtoTeam");
+        assertThat(withTeam.get(0).getId()).isNotNull();
+        assertThat(noTeam.get(0).getTeamName()).isNull(); // left join
+        assertThat(usernameOnly.get(0).getUsername()).isEqualTo("dtoMember");
+    }
+
     // 네이티브 쿼리 테스트
     @Test
     public void nativeQ() throws Exception {
@@ -0,0 +1,78 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 2차 캐시는 트랜잭션 커밋 이후에 반영되므로 테스트 메소드에 @Transactional을 걸지 않는다.
+@SpringBootTest
+class MemberSecondLevelCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJPARepository memberJPARepository;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    public void 벌크_수정_스프링_데이터_JPA_2차캐시_무효화() throws Exception {
+        // given
+        Long id = memberRepository.save(new Member("cacheA", 50)).getId();
+        memberRepository.findById(id); // 2차 캐시에 올라감
+        Cache cache = emf.getCache();
+        assertThat(cache.contains(Member.class, id)).isTrue();
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(50));
+
+        // then
+        assertThat(cache.contains(Member.class, id)).isFalse();
+        assertThat(memberRepository.findById(id).get().getAge()).isEqualTo(51);
+    }
+
+    @Test
+    public void 벌크_수정_순수_JPA_2차캐시_무효화() throws Exception {
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long id = tx.execute(status -> memberJPARepository.save(new Member("cacheB", 60)).getId());
+        tx.executeWithoutResult(status -> memberJPARepository.find(id));
+        Cache cache = emf.getCache();
+        assertThat(cache.contains(Member.class, id)).isTrue();
+
+        // when
+        tx.executeWithoutResult(status -> memberJPARepository.bulkAgePlus(60));
+
+        // then
+        assertThat(cache.contains(Member.class, id)).isFalse();
+        assertThat(tx.execute(status -> memberJPARepository.find(id).getAge())).isEqualTo(61);
+    }
+
+    // hibernate-micrometer - 2차 캐시 hit/miss가 리전별 메트릭으로 나온다.
+    @Test
+    public void 메트릭_2차캐시_hit() throws Exception {
+        // given
+        Long id = memberRepository.save(new Member("cacheMetric", 10)).getId();
+        memberRepository.findById(id); // 2차 캐시에 올라감
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "member", "result", "hit")
+                .functionCounter();
+        assertThat(hits).isNotNull();
+        double before = hits.count();
+
+        // when
+        memberRepository.findById(id);
+
+        // then
+        assertThat(hits.count()).isGreaterThan(before);
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.QueryCounter;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.config.QueryCountAssert.assertMaxQueries;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired TeamRepository teamRepository;
+    @Autowired TeamJPARepository teamJPARepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired QueryCounter queryCounter;
+    @PersistenceContext EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 20; i++) {
+            Team team = teamRepository.save(new Team("detailTeam" + i));
+            memberRepository.save(new Member("detailA" + i, 10, team));
+            memberRepository.save(new Member("detailB" + i, 20, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    // 팀 + 회원 페이징 - 페이지 크기를 바꿔도 쿼리 수는 같아야 한다.
+    @Test
+    public void 팀_회원_페이징_쿼리_수_일정() throws Exception {
+        for (int size : new int[]{5, 15}) {
+            em.clear();
+            Page<Team> page = assertMaxQueries(queryCounter, 3, () -> {
+                Page<Team> result = teamRepository.findPageWithMembers(PageRequest.of(0, size, Sort.by("id")));
+                result.forEach(team -> team.getMembers().size()); // 이미 초기화 되어 있어야 함
+                return result;
+            });
+            assertThat(page.getContent()).hasSize(size);
+        }
+    }
+
+    @Test
+    public void 팀_회원_페이징_순수_JPA() throws Exception {
+        List<Team> teams = assertMaxQueries(queryCounter, 2, () -> {
+            List<Team> result = teamJPARepository.findPageWithMembers(0, 10);
+            result.forEach(team -> team.getMembers().size());
+            return result;
+        });
+
+        assertThat(teams).hasSize(10);
+    }
+
+    // Member.team 프록시는 @BatchSize로 in 쿼리 한 번에 초기화
+    @Test
+    public void 회원_팀_배치_페치() throws Exception {
+        List<Member> members = memberRepository.findMemberCustom().stream()
+                .filter(member -> member.getUsername().startsWith("detail"))
+                .collect(Collectors.toList()); // 팀 20개
+
+        assertMaxQueries(queryCounter, 1, () -> {
+            members.forEach(member -> member.getTeam().getName());
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.BatchJobResult;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 파티션마다 별도 스레드, 청크마다 별도 트랜잭션이라 @Transactional을 걸지 않는다.
+@SpringBootTest
+class ChunkedJobRunnerTest {
+
+    @Autowired ChunkedJobRunner chunkedJobRunner;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void 청크_배치와_재실행() throws Exception {
+        // given
+        String prefix = saveMembers(50);
+        String jobId = "test-" + UUID.randomUUID();
+
+        // when
+        BatchJobResult first = chunkedJobRunner.execute(jobId, agePlus(prefix, member -> {}));
+        BatchJobResult again = chunkedJobRunner.execute(jobId, agePlus(prefix, member -> {})); // 이미 끝난 파티션은 건너뛴다
+
+        // then
+        assertThat(first.getPartitions()).isEqualTo(3);
+        assertThat(first.getProcessedRows()).isEqualTo(50);
+        assertThat(first.getChunks()).isGreaterThanOrEqualTo(50 / 7);
+        assertThat(again.getSkippedPartitions()).isEqualTo(again.getPartitions());
+        assertThat(again.getProcessedRows()).isZero();
+        assertAgeIncrementedOnce(prefix, 50);
+    }
+
+    @Test
+    public void 실패하면_마지막_커밋_다음부터_이어서() throws Exception {
+        // given
+        String prefix = saveMembers(50);
+        String jobId = "test-" + UUID.randomUUID();
+        AtomicBoolean fail = new AtomicBoolean(true);
+
+        // when
+        assertThatThrownBy(() -> chunkedJobRunner.execute(jobId, agePlus(prefix, member -> {
+            if (fail.get() && member.getUsername().equals(prefix + 30)) {
+                throw new IllegalArgumentException("boom");
+            }
+        }))).isInstanceOf(IllegalStateException.class).hasMessageContaining(jobId);
+        fail.set(false);
+        BatchJobResult resumed = chunkedJobRunner.execute(jobId, agePlus(prefix, member -> {}));
+
+        // then
+        assertThat(resumed.getProcessedRows()).isLessThan(50); // 커밋된 청크는 다시 처리하지 않는다
+        assertAgeIncrementedOnce(prefix, 50);
+    }
+
+    @Test
+    public void 다른_작업의_jobId는_거부() throws Exception {
+        String prefix = saveMembers(5);
+        String jobId = "test-" + UUID.randomUUID();
+        chunkedJobRunner.execute(jobId, agePlus(prefix, member -> {}));
+
+        assertThatThrownBy(() -> chunkedJobRunner.execute(jobId,
+                new ChunkedJob<>("other", Member.class, member -> {})))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ChunkedJob<Member> agePlus(String prefix, Consumer<Member> before) {
+        return new ChunkedJob<>("test-age-plus", Member.class, "e.username like :prefix", Map.of("prefix", prefix + "%"),
+                member -> {
+                    before.accept(member);
+                    member.setAge(member.getAge() + 1);
+                }, 7, 3);
+    }
+
+    private String saveMembers(int count) {
+        String prefix = "batch-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new Member(prefix + i, 10));
+        }
+        memberRepository.saveAll(members);
+        return prefix;
+    }
+
+    private void assertAgeIncrementedOnce(String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            assertThat(memberRepository.findByUsername(prefix + i).get(0).getAge()).isEqualTo(11);
+        }
+    }
+}
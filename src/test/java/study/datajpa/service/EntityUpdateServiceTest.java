@@ -0,0 +1,55 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.optimistic.max-attempts=100")
+class EntityUpdateServiceTest {
+
+    @Autowired EntityUpdateService entityUpdateService;
+    @Autowired MemberRepository memberRepository;
+
+    // 같은 회원을 동시에 수정해도 갱신 손실 없이 전부 반영되어야 한다.
+    @Test
+    public void 낙관적_락_재시도() throws Exception {
+        // given
+        Long id = memberRepository.save(new Member("optimistic", 0)).getId();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(pool.submit(() ->
+                    entityUpdateService.updateOptimistic(Member.class, id, m -> m.setAge(m.getAge() + 1))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        // then
+        Member member = memberRepository.findById(id).get();
+        assertThat(member.getAge()).isEqualTo(20);
+        assertThat(member.getVersion()).isEqualTo(20L);
+    }
+
+    @Test
+    public void 비관적_락() throws Exception {
+        Long id = memberRepository.save(new Member("pessimistic", 0)).getId();
+
+        entityUpdateService.updatePessimistic(Member.class, id, m -> m.setAge(m.getAge() + 1));
+
+        assertThat(memberRepository.findById(id).get().getAge()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,91 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import study.datajpa.dto.JobStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobLauncherTest {
+
+    JobLauncher jobLauncher = new JobLauncher(2, 10);
+
+    @AfterEach
+    void tearDown() {
+        jobLauncher.shutdown();
+    }
+
+    // 요청 스레드는 기다리지 않고, 같은 jobId는 실행 중에 한 번만
+    @Test
+    public void 백그라운드_실행과_상태() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        JobStatus submitted = jobLauncher.launch("job-1", "test", () -> {
+            runs.incrementAndGet();
+            await(release);
+            return "done";
+        });
+        JobStatus duplicate = jobLauncher.launch("job-1", "test", () -> runs.incrementAndGet());
+
+        assertThat(submitted.getState()).isIn("QUEUED", "RUNNING");
+        assertThat(duplicate.getState()).isIn("QUEUED", "RUNNING");
+
+        release.countDown();
+        JobStatus finished = waitFinished("job-1");
+        assertThat(finished.getState()).isEqualTo("COMPLETED");
+        assertThat(finished.getResult()).isEqualTo("done");
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    // 실패하면 상태에 남고, 같은 jobId로 다시 실행할 수 있다.
+    @Test
+    public void 실패와_재실행() throws Exception {
+        jobLauncher.launch("job-2", "test", () -> {
+            throw new IllegalStateException("청크 실패");
+        });
+        JobStatus failed = waitFinished("job-2");
+        assertThat(failed.getState()).isEqualTo("FAILED");
+        assertThat(failed.getError()).isEqualTo("청크 실패");
+
+        jobLauncher.launch("job-2", "test", () -> 1);
+        assertThat(waitFinished("job-2").getState()).isEqualTo("COMPLETED");
+        assertThat(jobLauncher.status("unknown")).isEmpty();
+    }
+
+    // Error도 FAILED로 끝나야 같은 jobId를 다시 받는다.
+    @Test
+    public void Error도_실패로_끝남() throws Exception {
+        jobLauncher.launch("job-3", "test", () -> {
+            throw new AssertionError("검증 실패");
+        });
+        JobStatus failed = waitFinished("job-3");
+        assertThat(failed.getState()).isEqualTo("FAILED");
+        assertThat(failed.getError()).isEqualTo("검증 실패");
+
+        jobLauncher.launch("job-3", "test", () -> 1);
+        assertThat(waitFinished("job-3").getState()).isEqualTo("COMPLETED");
+    }
+
+    private JobStatus waitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        JobStatus status = jobLauncher.status(jobId).get();
+        while (status.getFinishedDate() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = jobLauncher.status(jobId).get();
+        }
+        return status;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
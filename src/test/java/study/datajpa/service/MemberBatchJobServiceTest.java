@@ -0,0 +1,74 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.BatchJobResult;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 파티션마다 별도 스레드, 청크마다 별도 트랜잭션이라 @Transactional을 걸지 않는다.
+@SpringBootTest
+class MemberBatchJobServiceTest {
+
+    @Autowired MemberBatchJobService memberBatchJobService;
+    @Autowired ChunkedJobRunner chunkedJobRunner;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+
+    // 실패한 작업을 이어서 실행할 때는 그 사이에 생긴 팀이 아니라 처음 실행할 때의 팀 목록으로 배정한다.
+    @Test
+    public void 팀_재배치_실패후_이어서_같은_팀_목록으로() throws Exception {
+        // given
+        teamRepository.save(new Team("rebalance-a"));
+        teamRepository.save(new Team("rebalance-b"));
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            members.add(new Member("rebalance-" + UUID.randomUUID().toString().substring(0, 8), 10));
+        }
+        memberRepository.saveAll(members);
+        List<Long> teamIds = teamRepository.findAllIds();
+        Long poisonId = members.get(15).getId();
+        String jobId = "test-" + UUID.randomUUID();
+        AtomicBoolean fail = new AtomicBoolean(true);
+
+        // when - poison 회원이 있는 청크가 실패하고, 그 사이에 팀이 하나 더 생긴다
+        assertThatThrownBy(() -> memberBatchJobService.rebalanceTeams(jobId, member -> {
+            if (fail.get() && member.getId().equals(poisonId)) {
+                throw new IllegalArgumentException("boom");
+            }
+        })).isInstanceOf(IllegalStateException.class).hasMessageContaining(jobId);
+        fail.set(false);
+        Team late = teamRepository.save(new Team("rebalance-late"));
+        BatchJobResult resumed = memberBatchJobService.rebalanceTeams(jobId);
+
+        // then - 남은 청크만 처리하고, 모든 회원이 처음 팀 목록 기준으로 배정된다
+        assertThat(resumed.getSkippedPartitions()).isLessThan(resumed.getPartitions());
+        assertThat(resumed.getProcessedRows()).isPositive();
+        for (Member member : members) {
+            Long teamId = memberRepository.findById(member.getId()).get().getTeam().getId();
+            assertThat(teamId).isEqualTo(teamIds.get((int) (member.getId() % teamIds.size())));
+            assertThat(teamId).isNotEqualTo(late.getId());
+        }
+    }
+
+    @Test
+    public void 다른_작업의_jobId는_거부() throws Exception {
+        String jobId = "test-" + UUID.randomUUID();
+        chunkedJobRunner.fixedParameters(jobId, "other", () -> "");
+
+        assertThatThrownBy(() -> memberBatchJobService.rebalanceTeams(jobId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("other");
+    }
+}
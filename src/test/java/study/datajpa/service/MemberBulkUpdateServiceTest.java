@@ -0,0 +1,95 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.config.AuditStamp;
+import study.datajpa.dto.BulkUpdateResult;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 청크마다 별도 스레드, 별도 트랜잭션이라 @Transactional을 걸지 않는다.
+@SpringBootTest(properties = {"datajpa.bulk-update.chunk-size=10", "datajpa.bulk-update.threads=3"})
+class MemberBulkUpdateServiceTest {
+
+    @Autowired MemberBulkUpdateService memberBulkUpdateService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired ChunkedBulkUpdater chunkedBulkUpdater;
+
+    @Test
+    public void 청크_벌크_수정과_재실행() throws Exception {
+        // given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            members.add(new Member("chunked" + i, 170));
+        }
+        memberRepository.saveAll(members);
+        String jobId = "test-" + UUID.randomUUID();
+
+        // when
+        BulkUpdateResult first = memberBulkUpdateService.agePlus(170, jobId);
+        BulkUpdateResult again = memberBulkUpdateService.agePlus(170, jobId); // 이미 끝난 청크는 건너뛴다
+
+        // then
+        assertThat(first.getChunks()).isGreaterThanOrEqualTo(3);
+        assertThat(first.getUpdatedRows()).isGreaterThanOrEqualTo(25);
+        assertThat(again.getSkippedChunks()).isEqualTo(again.getChunks());
+        assertThat(again.getUpdatedRows()).isZero();
+        assertThat(memberRepository.findByUsername("chunked0").get(0).getAge()).isEqualTo(171); // 두 번 더해지지 않음
+    }
+
+    // 청크 하나가 실패하면 나머지 청크만 커밋된다. 같은 jobId로 다시 실행하면 실패한 청크만 실행한다.
+    @Test
+    public void 실패하면_남은_청크만_이어서() throws Exception {
+        // given - 가운데 회원(poison)이 있는 청크는 0으로 나누기로 실패한다.
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            members.add(new Member("resume" + i, 200));
+        }
+        memberRepository.saveAll(members);
+        Long poisonId = members.get(12).getId();
+        RangeUpdate update = new RangeUpdate(Member.class,
+                "select min(m.id), max(m.id) from Member m where m.age >= :age and m.id <> :poisonId",
+                "update Member m set m.age = m.age + 1 + 0 * (1 / (m.id - :poisonId)), m.lastModifiedBy = :modifiedBy" +
+                        " where m.age >= :age and m.id >= :fromId and m.id < :toId",
+                Map.of("age", 200, "poisonId", poisonId));
+        AuditStamp stamp = new AuditStamp("bulk-requester", LocalDateTime.now());
+        String jobId = "resume-" + UUID.randomUUID();
+
+        // when - 처음 실행은 poison 청크에서 실패
+        assertThatThrownBy(() -> chunkedBulkUpdater.execute(jobId, update, stamp))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("같은 jobId로 다시 실행");
+        List<Member> afterFailure = resumeMembers();
+        long incremented = afterFailure.stream().filter(m -> m.getAge() == 201).count();
+        assertThat(incremented).isPositive().isLessThan(25);
+        assertThat(afterFailure).allMatch(m -> m.getAge() == 200 || m.getAge() == 201);
+
+        // poison을 지우고 같은 jobId로 다시
+        memberRepository.deleteById(poisonId);
+        BulkUpdateResult resumed = chunkedBulkUpdater.execute(jobId, update, stamp);
+
+        // then - 실패한 청크 하나만 실행, 모든 회원이 정확히 한 번 +1
+        assertThat(resumed.getSkippedChunks()).isEqualTo(resumed.getChunks() - 1);
+        assertThat(resumed.getUpdatedRows()).isEqualTo(24 - incremented);
+        List<Member> afterResume = resumeMembers();
+        assertThat(afterResume).hasSize(24).allMatch(m -> m.getAge() == 201);
+        assertThat(afterResume).allMatch(m -> "bulk-requester".equals(m.getLastModifiedBy())); // 넘겨준 수정자
+    }
+
+    private List<Member> resumeMembers() {
+        return memberRepository.findAll().stream()
+                .filter(m -> m.getUsername() != null && m.getUsername().startsWith("resume"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberFileFormatTest {
+
+    // ?format= 값 - 대소문자 무시, 모르는 형식은 IllegalArgumentException (컨트롤러에서 400)
+    @Test
+    public void 이름으로_형식() throws Exception {
+        assertThat(MemberFileFormat.fromName("csv")).isEqualTo(MemberFileFormat.CSV);
+        assertThat(MemberFileFormat.fromName("NDJSON")).isEqualTo(MemberFileFormat.NDJSON);
+        assertThatThrownBy(() -> MemberFileFormat.fromName("xml"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("xml")
+                .hasMessageContaining("csv");
+    }
+}
@@ -0,0 +1,97 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.config.QueryCounter;
+import study.datajpa.dto.ImportResult;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 청크마다 커밋하므로 @Transactional을 걸지 않는다.
+@SpringBootTest(properties = "datajpa.import.chunk-size=2")
+class MemberImportServiceTest {
+
+    @Autowired MemberImportService memberImportService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired QueryCounter queryCounter;
+
+    @Test
+    public void ndjson_import() throws Exception {
+        // given
+        String ndjson = "{\"username\":\"importA\",\"age\":10,\"teamName\":\"importTeamA\"}\n" +
+                "{\"username\":\"importB\",\"age\":20,\"teamName\":\"importTeamA\"}\n" +
+                "\n" +
+                "{\"username\":\"importC\",\"age\":30}\n";
+
+        // when
+        ImportResult result = memberImportService.importMembers(new StringReader(ndjson), MemberFileFormat.NDJSON);
+
+        // then
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getTeamsCreated()).isEqualTo(1); // 같은 팀은 캐시에서 재사용
+        List<Member> members = memberRepository.findEntityGraphByUsername("importB");
+        assertThat(members.get(0).getTeam().getName()).isEqualTo("importTeamA");
+    }
+
+    // 팀은 청크마다 insert 전에 in 쿼리 한 번으로 찾는다. (회원 persist 중간에 조회하지 않는다)
+    @Test
+    public void 청크의_팀은_한번에_조회() throws Exception {
+        // given - 청크 2개 (chunk-size=2), 두 번째 청크의 chunkTeamA는 캐시에서
+        String csv = "chunkA,10,chunkTeamA\n" +
+                "chunkB,20,chunkTeamB\n" +
+                "chunkC,30,chunkTeamA\n" +
+                "chunkD,40,chunkTeamC\n";
+
+        // when
+        ImportResult result;
+        List<String> teamSelects;
+        try (QueryCounter.Scope scope = queryCounter.open("import")) {
+            result = memberImportService.importMembers(new StringReader(csv), MemberFileFormat.CSV);
+            teamSelects = scope.getStatements().stream()
+                    .map(sql -> sql.toLowerCase(Locale.ROOT))
+                    .filter(sql -> sql.stripLeading().startsWith("select") && sql.contains("from team"))
+                    .collect(Collectors.toList());
+        }
+
+        // then - 청크마다 한 번 (in (?, ?), in (?)), 이름 하나씩 찾는 쿼리 없음
+        assertThat(teamSelects).hasSize(2).allMatch(sql -> sql.contains(" in ("));
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(result.getTeamsCreated()).isEqualTo(3);
+        assertThat(memberRepository.findEntityGraphByUsername("chunkC").get(0).getTeam().getName()).isEqualTo("chunkTeamA");
+        assertThat(memberRepository.findEntityGraphByUsername("chunkD").get(0).getTeam().getName()).isEqualTo("chunkTeamC");
+    }
+
+    @Test
+    public void csv_import() throws Exception {
+        // given
+        String csv = "username,age,teamName\n" +
+                "csvA,10,csvTeam\n" +
+                "csvB,20,\n";
+
+        // when
+        ImportResult result = memberImportService.importMembers(new StringReader(csv), MemberFileFormat.CSV);
+
+        // then
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(teamRepository.findFirstByName("csvTeam")).isPresent();
+        assertThat(memberRepository.findByUsername("csvB").get(0).getAge()).isEqualTo(20);
+    }
+
+    @Test
+    public void 잘못된_줄은_줄번호와_함께_실패() throws Exception {
+        assertThatThrownBy(() -> memberImportService.importMembers(new StringReader("badA,notAnAge\n"), MemberFileFormat.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1번째 줄");
+    }
+}
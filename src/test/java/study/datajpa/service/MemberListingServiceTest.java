@@ -0,0 +1,87 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberListingServiceTest {
+
+    @Autowired MemberListingService memberListingService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired ObjectMapper objectMapper;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void compact_JSON_페이지() throws Exception {
+        // given - 다른 테스트가 커밋한 회원보다 앞에 오도록 '~'로 시작하는 username을 역순으로 정렬
+        Team team = teamRepository.save(new Team("compactTeam"));
+        Member member1 = memberRepository.save(new Member("~compact1", 10, team));
+        Member member2 = memberRepository.save(new Member("~compact2", 10, null));
+        Member member3 = memberRepository.save(new Member("~compact3", 10, team));
+        em.flush();
+        em.clear();
+
+        // when - username 역순 첫 페이지
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = memberListingService.writePage(out, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "username")));
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+
+        // then - 값과 순서
+        assertThat(written).isEqualTo(2);
+        JsonNode content = json.get("content");
+        assertThat(content).hasSize(2);
+        assertThat(content.get(0).get("id").asLong()).isEqualTo(member3.getId());
+        assertThat(content.get(0).get("username").asText()).isEqualTo("~compact3");
+        assertThat(content.get(0).get("teamName").asText()).isEqualTo("compactTeam");
+        assertThat(content.get(1).get("id").asLong()).isEqualTo(member2.getId());
+        assertThat(content.get(1).get("username").asText()).isEqualTo("~compact2");
+        // 팀이 없는 회원은 "teamName": null (필드를 빼지 않는다)
+        assertThat(content.get(1).has("teamName")).isTrue();
+        assertThat(content.get(1).get("teamName").isNull()).isTrue();
+
+        assertThat(json.get("page").asInt()).isZero();
+        assertThat(json.get("size").asInt()).isEqualTo(2);
+        assertThat(json.get("numberOfElements").asInt()).isEqualTo(2);
+        assertThat(json.get("hasNext").asBoolean()).isTrue();
+
+        // 다음 페이지는 이어서
+        out = new ByteArrayOutputStream();
+        memberListingService.writePage(out, PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "username")));
+        JsonNode next = objectMapper.readTree(out.toByteArray()).get("content");
+        assertThat(next.get(0).get("id").asLong()).isEqualTo(member1.getId());
+        assertThat(next.get(0).get("username").asText()).isEqualTo("~compact1");
+        assertThat(next.get(0).get("teamName").asText()).isEqualTo("compactTeam");
+    }
+
+    @Test
+    public void 마지막_페이지() throws Exception {
+        memberRepository.save(new Member("compactLast", 10));
+        em.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long total = memberRepository.count();
+        int written = memberListingService.writePage(out, PageRequest.of((int) total - 1, 1, Sort.by("id")));
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+
+        assertThat(written).isEqualTo(1);
+        assertThat(json.get("hasNext").asBoolean()).isFalse();
+    }
+}
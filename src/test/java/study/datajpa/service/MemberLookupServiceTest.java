@@ -0,0 +1,126 @@
+package study.datajpa.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 리파지터리 조회까지 실제로 거친다. leader의 트랜잭션 시작을 막아 두고 나머지가 합쳐지는지 본다.
+@SpringBootTest
+class MemberLookupServiceTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 동시_조회는_한번만_하고_각자_복사본() throws Exception {
+        // given
+        Member member = memberRepository.save(new Member("lookup-1", 10));
+        CountDownLatch release = new CountDownLatch(1);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MemberLookupService lookupService = new MemberLookupService(memberRepository,
+                new BlockingTransactionManager(transactionManager, release), meterRegistry);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<Optional<MemberDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> lookupService.findById(member.getId())));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (calls(meterRegistry, "member.findById", "coalesced") < 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        List<MemberDto> results = new ArrayList<>();
+        for (Future<Optional<MemberDto>> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        pool.shutdown();
+
+        // then - 조회 한 번, DTO 변환, 메트릭
+        assertThat(calls(meterRegistry, "member.findById", "leader")).isEqualTo(1);
+        assertThat(calls(meterRegistry, "member.findById", "coalesced")).isEqualTo(7);
+        assertThat(results).allSatisfy(dto -> {
+            assertThat(dto.getId()).isEqualTo(member.getId());
+            assertThat(dto.getUsername()).isEqualTo("lookup-1");
+        });
+
+        // 하나를 바꿔도 다른 호출의 결과는 그대로
+        results.get(0).setUsername("changed");
+        assertThat(results.subList(1, results.size())).allMatch(dto -> dto.getUsername().equals("lookup-1"));
+    }
+
+    @Test
+    public void username_조회() throws Exception {
+        memberRepository.save(new Member("lookup-2", 10));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MemberLookupService lookupService = new MemberLookupService(memberRepository, transactionManager, meterRegistry);
+
+        List<MemberDto> first = lookupService.findByUsername("lookup-2");
+        first.get(0).setUsername("changed");
+        List<MemberDto> second = lookupService.findByUsername("lookup-2");
+
+        assertThat(second).extracting(MemberDto::getUsername).containsExactly("lookup-2");
+        assertThat(calls(meterRegistry, "member.findByUsername", "leader")).isEqualTo(2); // 결과는 캐시하지 않는다
+    }
+
+    private static double calls(MeterRegistry meterRegistry, String name, String result) {
+        FunctionCounter counter = meterRegistry.find("datajpa.singleflight.calls")
+                .tag("name", name)
+                .tag("result", result)
+                .functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    // release 될 때까지 트랜잭션 시작을 막는다. (loader를 실행하는 leader만 여기까지 온다)
+    static class BlockingTransactionManager implements PlatformTransactionManager {
+        private final PlatformTransactionManager delegate;
+        private final CountDownLatch release;
+
+        BlockingTransactionManager(PlatformTransactionManager delegate, CountDownLatch release) {
+            this.delegate = delegate;
+            this.release = release;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return delegate.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            delegate.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            delegate.rollback(status);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJPARepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 커밋된 변경만 반영되므로 테스트 트랜잭션 없이. compact-threshold를 낮춰서 합치기도 같이 확인
+@SpringBootTest(properties = "datajpa.username-index.compact-threshold=3")
+class UsernameIndexTest {
+
+    @Autowired UsernameIndex usernameIndex;
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityUpdateService entityUpdateService;
+    @Autowired MemberJPARepository memberJPARepository;
+
+    @Test
+    public void prefix_검색과_변경_반영() throws Exception {
+        // given
+        memberRepository.save(new Member("typeahead-b1"));
+        Member a2 = memberRepository.save(new Member("typeahead-a2"));
+        memberRepository.save(new Member("typeahead-a1"));
+        memberRepository.save(new Member("typeahead-a1")); // 같은 username
+
+        // then
+        assertThat(usernameIndex.search("typeahead-a", 10)).containsExactly("typeahead-a1", "typeahead-a2");
+        assertThat(usernameIndex.search("typeahead-", 2)).containsExactly("typeahead-a1", "typeahead-a2");
+
+        // when - username 변경, 삭제
+        entityUpdateService.updateOptimistic(Member.class, a2.getId(), m -> m.changeUserName("typeahead-c1"));
+        memberRepository.deleteById(memberRepository.findByUsername("typeahead-b1").get(0).getId());
+
+        // then
+        assertThat(usernameIndex.search("typeahead-", 10)).containsExactly("typeahead-a1", "typeahead-c1");
+    }
+
+    @Test
+    public void 다시_만들기와_메모리_사용량() throws Exception {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            members.add(new Member("rebuild-" + (i % 100))); // username당 2명
+        }
+        memberRepository.saveAll(members);
+
+        usernameIndex.rebuild();
+
+        assertThat(usernameIndex.search("rebuild-1", 3)).containsExactly("rebuild-1", "rebuild-10", "rebuild-11");
+        Map<String, Object> stats = usernameIndex.stats();
+        assertThat(stats).containsKeys("distinctUsernames", "members", "indexBytes", "listEquivalentBytes");
+        assertThat((long) stats.get("indexBytes")).isLessThan((long) stats.get("listEquivalentBytes"));
+    }
+
+    // StatelessSession 쓰기는 hibernate 이벤트가 없어서 커밋 후 reconcile로 반영된다.
+    @Test
+    public void stateless_쓰기_반영() throws Exception {
+        // given
+        Member s1 = new Member("stateless-idx-a");
+        Member s2 = new Member("stateless-idx-a");
+        memberJPARepository.insertStateless(List.of(s1, s2));
+        assertThat(usernameIndex.search("stateless-idx-", 10)).containsExactly("stateless-idx-a");
+
+        // when - 하나는 이름 변경, 하나는 삭제
+        Member renamed = memberRepository.findById(s1.getId()).get();
+        renamed.changeUserName("stateless-idx-b");
+        memberJPARepository.updateStateless(List.of(renamed));
+        assertThat(usernameIndex.search("stateless-idx-", 10)).containsExactly("stateless-idx-a", "stateless-idx-b");
+
+        memberJPARepository.deleteStateless(List.of(memberRepository.findById(s2.getId()).get()));
+
+        // then - 바뀌기 전 username의 개수도 0이 된다.
+        assertThat(usernameIndex.search("stateless-idx-", 10)).containsExactly("stateless-idx-b");
+    }
+
+    // 다시 셀 때는 delta를 더하지 않고 DB 개수로 맞추므로 두 번 반영된 변경도 바로잡힌다.
+    @Test
+    public void 다시_세면_중복_반영이_없어짐() throws Exception {
+        memberRepository.save(new Member("recount-a"));
+        usernameIndex.apply(null, "recount-a"); // 같은 커밋이 한 번 더 들어온 경우
+        usernameIndex.apply(null, "recount-ghost");
+
+        usernameIndex.reconcile(List.of("recount-a", "recount-ghost"));
+        memberRepository.deleteById(memberRepository.findByUsername("recount-a").get(0).getId());
+
+        assertThat(usernameIndex.search("recount-", 10)).isEmpty();
+    }
+}